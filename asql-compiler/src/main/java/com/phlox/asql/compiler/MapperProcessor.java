@@ -0,0 +1,379 @@
+package com.phlox.asql.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates com.phlox.asql.Mapper implementation for every class annotated with
+ * com.phlox.asql.annotations.DBTable so ASQL can read and bind models without reflection.
+ * Column naming rules are the same as in com.phlox.asql.ModelsInfoProcessor.
+ * Models that can not be accessed from generated code (private fields, no accessible
+ * no-arg constructor, non-static inner classes) are skipped and processed by reflection at runtime.
+ * Fields of types without native column mapping (enums, Date, boxed types...) are left out of
+ * generated code, ASQL converts them with com.phlox.asql.TypeConverters registered at runtime.
+ */
+@SupportedAnnotationTypes(MapperProcessor.DB_TABLE)
+public class MapperProcessor extends AbstractProcessor {
+    static final String DB_TABLE = "com.phlox.asql.annotations.DBTable";
+    static final String DB_COLUMN = "com.phlox.asql.annotations.DBColumn";
+    static final String DB_IGNORE = "com.phlox.asql.annotations.DBIgnore";
+    static final String MARK_MODE_ONLY_COLUMN_MARKED = "ONLY_COLUMN_MARKED";
+    static final String GENERATED_CLASS_SUFFIX = "_ASQLMapper";
+
+    static class ColumnModel {
+        String name;
+        String fieldName;
+        TypeMirror type;
+        boolean primaryKey;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) continue;
+                TypeElement type = (TypeElement) element;
+                List<ColumnModel> columns = parseColumns(type);
+                if (columns == null) continue;
+                try {
+                    writeMapper(type, columns);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Can not write ASQL mapper: " + e.getMessage(), type);
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<ColumnModel> parseColumns(TypeElement type) {
+        if (!isAccessible(type)) {
+            note("class is not accessible from generated mapper, reflection will be used", type);
+            return null;
+        }
+        boolean onlyColumnMarked = false;
+        AnnotationMirror tableAnnotation = findAnnotation(type, DB_TABLE);
+        Object markMode = getAnnotationValue(tableAnnotation, "markMode");
+        if (markMode instanceof VariableElement) {
+            onlyColumnMarked = ((VariableElement) markMode).getSimpleName().contentEquals(MARK_MODE_ONLY_COLUMN_MARKED);
+        }
+
+        List<ColumnModel> columns = new ArrayList<>();
+        ColumnModel primaryKey = null;
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> mods = field.getModifiers();
+            if (mods.contains(Modifier.STATIC) || mods.contains(Modifier.FINAL) ||
+                    field.getSimpleName().contentEquals("serialVersionUID") ||
+                    findAnnotation(field, DB_IGNORE) != null) continue;
+            ColumnModel column = new ColumnModel();
+            column.fieldName = field.getSimpleName().toString();
+            column.type = field.asType();
+            AnnotationMirror columnAnnotation = findAnnotation(field, DB_COLUMN);
+            if (columnAnnotation != null) {
+                Object name = getAnnotationValue(columnAnnotation, "name");
+                column.name = name == null || "".equals(name) ? camelCaseToDBCase(column.fieldName) : (String) name;
+                if (Boolean.TRUE.equals(getAnnotationValue(columnAnnotation, "primaryKey"))) {
+                    column.primaryKey = true;
+                    primaryKey = column;
+                }
+            } else {
+                if (onlyColumnMarked) continue;
+                column.name = camelCaseToDBCase(column.fieldName);
+            }
+            if (mods.contains(Modifier.PRIVATE)) {
+                note("field " + column.fieldName + " is private, reflection will be used", type);
+                return null;
+            }
+            columns.add(column);
+        }
+        if (primaryKey == null) {
+            for (ColumnModel column : columns) {
+                if ("id".equals(column.name)) {
+                    column.primaryKey = true;
+                    break;
+                }
+            }
+        }
+        return columns;
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            TypeElement t = (TypeElement) e;
+            if (t.getModifiers().contains(Modifier.PRIVATE)) return false;
+            if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS) return false;
+            if (t == type && t.getNestingKind() == NestingKind.MEMBER &&
+                    !t.getModifiers().contains(Modifier.STATIC)) return false;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return constructors.isEmpty();
+    }
+
+    private void writeMapper(TypeElement type, List<ColumnModel> columns) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String flatName = type.getSimpleName().toString();
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            flatName = e.getSimpleName() + "_" + flatName;
+        }
+        String mapperName = flatName + GENERATED_CLASS_SUFFIX;
+        String modelName = type.getQualifiedName().toString();
+        ColumnModel primaryKey = null;
+        for (ColumnModel column : columns) {
+            if (column.primaryKey) primaryKey = column;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("import com.phlox.asql.Mapper;\n");
+        sb.append("import com.phlox.asql.driver.DBCursor;\n");
+        sb.append("import com.phlox.asql.driver.DBStatement;\n\n");
+        sb.append("/**\n * Generated by asql-compiler. Do not edit.\n */\n");
+        sb.append("public final class ").append(mapperName).append(" implements Mapper<").append(modelName).append("> {\n");
+
+        sb.append("    private static final String[] COLUMNS = {");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i != 0) sb.append(", ");
+            sb.append('"').append(columns.get(i).name).append('"');
+        }
+        sb.append("};\n\n");
+
+        sb.append("    @Override\n    public String[] getColumnNames() {\n        return COLUMNS;\n    }\n\n");
+
+        sb.append("    @Override\n    public ").append(modelName).append(" newInstance() {\n");
+        sb.append("        return new ").append(modelName).append("();\n    }\n\n");
+
+        sb.append("    @Override\n    public void readColumn(").append(modelName)
+                .append(" entity, int column, DBCursor cursor, int cursorIndex) {\n");
+        sb.append("        switch (column) {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            String read = readExpression(columns.get(i).type);
+            if (read == null) continue;
+            sb.append("            case ").append(i).append(": entity.").append(columns.get(i).fieldName)
+                    .append(" = ").append(read).append("; break;\n");
+        }
+        sb.append("        }\n    }\n\n");
+
+        sb.append("    @Override\n    public void bindColumn(").append(modelName)
+                .append(" entity, int column, DBStatement statement, int index) {\n");
+        sb.append("        switch (column) {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append("            case ").append(i).append(": ")
+                    .append(bindStatement(columns.get(i))).append(" break;\n");
+        }
+        sb.append("        }\n    }\n\n");
+
+        sb.append("    @Override\n    public void clearColumn(").append(modelName)
+                .append(" entity, int column) {\n");
+        sb.append("        switch (column) {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            String value = defaultValue(columns.get(i).type);
+            if (value == null) continue;
+            sb.append("            case ").append(i).append(": entity.").append(columns.get(i).fieldName)
+                    .append(" = ").append(value).append("; break;\n");
+        }
+        sb.append("        }\n    }\n\n");
+
+        sb.append("    @Override\n    public Object getColumn(").append(modelName)
+                .append(" entity, int column) {\n");
+        sb.append("        switch (column) {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            if (readExpression(columns.get(i).type) == null) continue;
+            sb.append("            case ").append(i).append(": return ");
+            if (isBlob(columns.get(i).type)) {
+                //mutable value, compared by content with a copy
+                sb.append("com.phlox.asql.ColumnAccessor.blobSnapshot(entity.")
+                        .append(columns.get(i).fieldName).append(");\n");
+            } else {
+                sb.append("entity.").append(columns.get(i).fieldName).append(";\n");
+            }
+        }
+        sb.append("            default: return null;\n");
+        sb.append("        }\n    }\n\n");
+
+        boolean integerKey = primaryKey != null && isIntegerKey(primaryKey.type);
+        sb.append("    @Override\n    public long getPrimaryKey(").append(modelName).append(" entity) {\n");
+        if (integerKey) {
+            sb.append("        return entity.").append(primaryKey.fieldName).append(";\n");
+        } else {
+            sb.append("        throw new UnsupportedOperationException(\"No integer primary key\");\n");
+        }
+        sb.append("    }\n\n");
+        sb.append("    @Override\n    public void setPrimaryKey(").append(modelName).append(" entity, long key) {\n");
+        if (integerKey) {
+            sb.append("        entity.").append(primaryKey.fieldName).append(" = ");
+            if (primaryKey.type.getKind() != TypeKind.LONG) {
+                sb.append('(').append(primaryKey.type.toString()).append(") ");
+            }
+            sb.append("key;\n");
+        } else {
+            sb.append("        throw new UnsupportedOperationException(\"No integer primary key\");\n");
+        }
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? mapperName : packageName + "." + mapperName, type);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(sb.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Same conversions as ModelsInfoProcessor uses for reflection.
+     * Returns null for unsupported types, they are never read from cursor.
+     */
+    private static String readExpression(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT: return "cursor.getInt(cursorIndex)";
+            case SHORT: return "cursor.getShort(cursorIndex)";
+            case BYTE: return "(byte) cursor.getShort(cursorIndex)";
+            case CHAR: return "(char) cursor.getInt(cursorIndex)";
+            case LONG: return "cursor.getLong(cursorIndex)";
+            case FLOAT: return "cursor.getFloat(cursorIndex)";
+            case DOUBLE: return "cursor.getDouble(cursorIndex)";
+            case BOOLEAN: return "cursor.getInt(cursorIndex) != 0";
+            default:
+                if (isString(type)) return "cursor.getString(cursorIndex)";
+                if (isByteArray(type)) return "cursor.getBlob(cursorIndex)";
+                if (isByteBuffer(type)) return "com.phlox.asql.ColumnAccessor.wrapBlob(cursor.getBlob(cursorIndex))";
+                return null;
+        }
+    }
+
+    /**
+     * Unsupported types are bound as NULL, same as in reflection mode
+     */
+    private static String bindStatement(ColumnModel column) {
+        String value = "entity." + column.fieldName;
+        switch (column.type.getKind()) {
+            case INT: case SHORT: case BYTE: case CHAR: case LONG:
+                return "statement.bindLong(index, " + value + ");";
+            case FLOAT: case DOUBLE:
+                return "statement.bindDouble(index, " + value + ");";
+            case BOOLEAN:
+                return "statement.bindLong(index, " + value + " ? 1 : 0);";
+            default:
+                if (isString(column.type)) {
+                    return "if (" + value + " == null) statement.bindNull(index); else statement.bindString(index, " + value + ");";
+                }
+                if (isBlob(column.type)) {
+                    return "com.phlox.asql.ColumnAccessor.bindBlob(statement, index, " + value + ");";
+                }
+                return "statement.bindNull(index);";
+        }
+    }
+
+    /**
+     * Returns null for unsupported types, they are never read from cursor so never cleared.
+     */
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT: case SHORT: case BYTE: case CHAR: case LONG: case FLOAT: case DOUBLE:
+                return "0";
+            case BOOLEAN:
+                return "false";
+            default:
+                if (isString(type) || isBlob(type)) return "null";
+                return null;
+        }
+    }
+
+    private static boolean isIntegerKey(TypeMirror type) {
+        return type.getKind() == TypeKind.LONG || type.getKind() == TypeKind.INT || type.getKind() == TypeKind.SHORT;
+    }
+
+    private static boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED &&
+                ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    private static boolean isByteArray(TypeMirror type) {
+        return type.getKind() == TypeKind.ARRAY && ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE;
+    }
+
+    private static boolean isByteBuffer(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED &&
+                ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.nio.ByteBuffer");
+    }
+
+    private static boolean isBlob(TypeMirror type) {
+        return isByteArray(type) || isByteBuffer(type);
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static Object getAnnotationValue(AnnotationMirror mirror, String name) {
+        if (mirror == null) return null;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+            if (e.getKey().getSimpleName().contentEquals(name)) {
+                return e.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private void note(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "ASQL: " + message, element);
+    }
+
+    static String camelCaseToDBCase(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i != 0) {
+                sb.append('_');
+            }
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.phlox.asql.driver.jdbc;
+
+import com.phlox.asql.driver.BindArgs;
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBException;
+import com.phlox.asql.driver.DBStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.BitSet;
+
+/**
+ * Connection over JDBC. Nested transactions are emulated same way as Android does: auto-commit
+ * is turned off by outermost {@link #beginTransaction()} and whole transaction is rolled back by
+ * outermost {@link #endTransaction()} if any level was not marked successful.
+ * Not thread safe.
+ */
+public class JdbcConnection implements DBConnection {
+    private final Connection connection;
+    private PreparedStatement lastInsertRowIdStatement;
+    private int transactionDepth = 0;
+    private final BitSet successfulLevels = new BitSet();
+    private boolean transactionFailed;
+
+    public JdbcConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    public Connection getJdbcConnection() {
+        return connection;
+    }
+
+    @Override
+    public DBStatement compileStatement(String sql) {
+        try {
+            return new JdbcStatement(this, connection.prepareStatement(sql));
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage() + ", while compiling: " + sql, e);
+        }
+    }
+
+    @Override
+    public DBCursor query(String sql, Object[] args) {
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            if (args != null) {
+                BindArgs.bind(new JdbcStatement(this, statement), args);
+            }
+            return new JdbcCursor(statement, statement.executeQuery());
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            throw new DBException(e.getMessage() + ", while querying: " + sql, e);
+        } catch (DBException e) {
+            closeQuietly(statement);
+            throw e;
+        }
+    }
+
+    @Override
+    public void execSQL(String sql) {
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.execute(sql);
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage() + ", while executing: " + sql, e);
+        }
+    }
+
+    @Override
+    public void beginTransaction() {
+        if (transactionDepth == 0) {
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                throw new DBException("Can not begin transaction", e);
+            }
+            transactionFailed = false;
+        }
+        transactionDepth++;
+        successfulLevels.clear(transactionDepth);
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        if (transactionDepth == 0) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        successfulLevels.set(transactionDepth);
+    }
+
+    @Override
+    public void endTransaction() {
+        if (transactionDepth == 0) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        if (!successfulLevels.get(transactionDepth)) {
+            transactionFailed = true;
+        }
+        transactionDepth--;
+        if (transactionDepth > 0) return;
+        try {
+            try {
+                if (transactionFailed) {
+                    connection.rollback();
+                } else {
+                    connection.commit();
+                }
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DBException("Can not end transaction", e);
+        }
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return transactionDepth > 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeQuietly(lastInsertRowIdStatement);
+            connection.close();
+        } catch (SQLException e) {
+            throw new DBException("Can not close connection", e);
+        }
+    }
+
+    long lastInsertRowId() throws SQLException {
+        if (lastInsertRowIdStatement == null) {
+            lastInsertRowIdStatement = connection.prepareStatement("SELECT last_insert_rowid()");
+        }
+        ResultSet resultSet = lastInsertRowIdStatement.executeQuery();
+        try {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    static void closeQuietly(Statement statement) {
+        if (statement == null) return;
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.phlox.asql.driver.jdbc;
+
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Forward only cursor over JDBC result set: rows are not counted or buffered, so
+ * {@link #getCount()} returns -1 and only moving forward is supported.
+ * Closing cursor closes statement it was created by.
+ */
+public class JdbcCursor implements DBCursor {
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    //result set may be closed by driver after last row, so names are read in advance
+    private final String[] columnNames;
+    private int position = -1;
+    private boolean afterLast = false;
+    private boolean closed = false;
+
+    JdbcCursor(PreparedStatement statement, ResultSet resultSet) throws SQLException {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        columnNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return -1;
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean moveToNext() {
+        if (afterLast) return false;
+        position++;
+        try {
+            if (resultSet.next()) {
+                return true;
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+        afterLast = true;
+        return false;
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        if (position < this.position) {
+            throw new UnsupportedOperationException("Cursor is forward only");
+        }
+        while (this.position < position) {
+            if (!moveToNext()) return false;
+        }
+        return !afterLast;
+    }
+
+    @Override
+    public boolean moveToLast() {
+        throw new UnsupportedOperationException("Cursor is forward only");
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Type of value in current row (SQLite types are dynamic), sqlite-jdbc returns value object
+     * matching storage class
+     */
+    @Override
+    public int getType(int columnIndex) {
+        Object value;
+        try {
+            value = resultSet.getObject(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+        if (value == null) {
+            return FIELD_TYPE_NULL;
+        } else if (value instanceof Double || value instanceof Float) {
+            return FIELD_TYPE_FLOAT;
+        } else if (value instanceof Number) {
+            return FIELD_TYPE_INTEGER;
+        } else if (value instanceof byte[]) {
+            return FIELD_TYPE_BLOB;
+        }
+        return FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        try {
+            return resultSet.getObject(columnIndex + 1) == null;
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        try {
+            return resultSet.getString(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        try {
+            return resultSet.getShort(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        try {
+            return resultSet.getInt(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        try {
+            return resultSet.getLong(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        try {
+            return resultSet.getFloat(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        try {
+            return resultSet.getDouble(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        try {
+            return resultSet.getBytes(columnIndex + 1);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        JdbcConnection.closeQuietly(statement);
+    }
+}
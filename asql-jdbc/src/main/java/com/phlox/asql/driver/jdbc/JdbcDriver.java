@@ -0,0 +1,23 @@
+package com.phlox.asql.driver.jdbc;
+
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBDriver;
+import com.phlox.asql.driver.DBException;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Driver over sqlite-jdbc for desktop JVM
+ */
+public class JdbcDriver implements DBDriver {
+
+    @Override
+    public DBConnection open(String path) {
+        try {
+            return new JdbcConnection(DriverManager.getConnection("jdbc:sqlite:" + path));
+        } catch (SQLException e) {
+            throw new DBException("Can not open database " + path, e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.phlox.asql;
+
+import com.phlox.asql.annotations.DBColumn;
+import com.phlox.asql.annotations.DBTable;
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.jdbc.JdbcDriver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ModelStoreTest {
+    private File file;
+    private ModelStore store;
+
+    @DBTable(name = "note")
+    public static class Note {
+        long id;
+        @DBColumn(indexed = true)
+        String title;
+        double rating;
+        boolean pinned;
+        long modificationTime;
+
+        public Note() {
+        }
+
+        public Note(String title, double rating, boolean pinned, long modificationTime) {
+            this.title = title;
+            this.rating = rating;
+            this.pinned = pinned;
+            this.modificationTime = modificationTime;
+        }
+    }
+
+    public enum Status {
+        NEW, DONE
+    }
+
+    public enum Priority {
+        LOW, HIGH
+    }
+
+    @DBTable(name = "event")
+    public static class Event {
+        long id;
+        Status status;
+        Priority priority;
+        Date time;
+        Integer attempts;
+        UUID uuid;
+
+        public Event() {
+        }
+    }
+
+    @DBTable(name = "tracked_note", trackChanges = true)
+    public static class TrackedNote {
+        long id;
+        String title;
+        double rating;
+
+        public TrackedNote() {
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("asql", ".db");
+        store = new ModelStore(new JdbcDriver().open(file.getPath()));
+        store.createTables(Note.class);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        file.delete();
+    }
+
+    @Test
+    public void crud() throws Exception {
+        Note note = new Note("first", 4.5, true, 1000);
+        long id = store.save(note);
+        assertTrue(id > 0);
+        assertEquals(id, note.id);
+
+        Note loaded = store.find(Note.class, "title = ?", "first");
+        assertEquals(id, loaded.id);
+        assertEquals(4.5, loaded.rating, 0);
+        assertTrue(loaded.pinned);
+        assertEquals(1000, loaded.modificationTime);
+
+        loaded.title = "changed";
+        assertEquals(id, store.save(loaded));
+        assertEquals(1, store.count(Note.class));
+        assertEquals("changed", store.findByPrimaryKey(Note.class, id).title);
+
+        assertEquals(1, store.delete(loaded));
+        assertEquals(0, store.count(Note.class));
+        assertNull(store.findByPrimaryKey(Note.class, id));
+    }
+
+    @Test
+    public void trackedModelUpdatesOnlyChangedColumns() throws Exception {
+        store.createTables(TrackedNote.class);
+        TrackedNote note = new TrackedNote();
+        note.title = "first";
+        note.rating = 1;
+        long id = store.save(note);
+
+        //concurrent change of other column must survive saving of stale entity
+        store.getConnection().execSQL("UPDATE tracked_note SET rating = 5 WHERE id = " + id);
+        note.title = "changed";
+        assertEquals(id, store.save(note));
+
+        DBCursor cursor = store.getConnection().query("SELECT title, rating FROM tracked_note WHERE id = ?", new Object[]{id});
+        try {
+            assertTrue(cursor.moveToNext());
+            assertEquals("changed", cursor.getString(0));
+            assertEquals(5, cursor.getDouble(1), 0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void saveAllAndStream() throws Exception {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            notes.add(new Note("note " + i, i, i % 2 == 0, i));
+        }
+        assertEquals(25, store.saveAll(notes, 10));
+        assertEquals(25, store.loadAll(Note.class).size());
+
+        int count = 0;
+        CloseableIterator<Note> iterator = store.stream(Note.class,
+                "SELECT * FROM note WHERE modification_time >= ? ORDER BY id", 20);
+        try {
+            for (Note note : iterator) {
+                assertEquals(20 + count, note.modificationTime);
+                count++;
+            }
+        } finally {
+            iterator.close();
+        }
+        assertEquals(5, count);
+    }
+
+    @Test
+    public void nestedTransactionRollsBackWhenInnerLevelFails() {
+        DBConnection connection = store.getConnection();
+        connection.beginTransaction();
+        try {
+            connection.beginTransaction();
+            try {
+                connection.execSQL("INSERT INTO note (title) VALUES ('inner')");
+            } finally {
+                connection.endTransaction();
+            }
+            connection.setTransactionSuccessful();
+        } finally {
+            connection.endTransaction();
+        }
+        assertFalse(connection.inTransaction());
+        assertEquals(0, store.count(Note.class));
+    }
+
+    @Test
+    public void typeConverters() throws Exception {
+        TypeConverters converters = new TypeConverters()
+                .register(Priority.class, TypeConverters.enumByOrdinal(Priority.class));
+        ModelStore eventStore = new ModelStore(store.getConnection(), new ModelsInfoProcessor(converters));
+        eventStore.createTables(Event.class);
+
+        Event event = new Event();
+        event.status = Status.DONE;
+        event.priority = Priority.HIGH;
+        event.time = new Date(1500000000000L);
+        event.uuid = UUID.randomUUID();
+        long id = eventStore.save(event);
+
+        Event loaded = eventStore.findByPrimaryKey(Event.class, id);
+        assertEquals(Status.DONE, loaded.status);
+        assertEquals(Priority.HIGH, loaded.priority);
+        assertEquals(event.time, loaded.time);
+        assertEquals(event.uuid, loaded.uuid);
+        assertNull(loaded.attempts);
+
+        DBCursor cursor = store.getConnection().query(
+                "SELECT status, priority, time, length(uuid), typeof(attempts) FROM event", null);
+        try {
+            assertTrue(cursor.moveToNext());
+            assertEquals("DONE", cursor.getString(0));
+            assertEquals(1, cursor.getInt(1));
+            assertEquals(1500000000000L, cursor.getLong(2));
+            assertEquals(16, cursor.getInt(3));
+            assertEquals("null", cursor.getString(4));
+        } finally {
+            cursor.close();
+        }
+
+        loaded.attempts = 0;
+        eventStore.save(loaded);
+        assertEquals(Integer.valueOf(0), eventStore.findByPrimaryKey(Event.class, id).attempts);
+        assertEquals("UPDATE event SET status = 'DONE', priority = 1",
+                eventStore.getModels().formatSQL("UPDATE event SET status = :status, priority = :priority", loaded));
+    }
+
+    @Test
+    public void queryArgumentsBoundByType() {
+        DBCursor cursor = store.getConnection().query("SELECT typeof(?), typeof(?), typeof(?), ?",
+                new Object[]{7, 2.5f, true, new BigDecimal("1.5")});
+        try {
+            assertTrue(cursor.moveToNext());
+            assertEquals("integer", cursor.getString(0));
+            assertEquals("real", cursor.getString(1));
+            assertEquals("integer", cursor.getString(2));
+            //not truncated to long
+            assertEquals("1.5", cursor.getString(3));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void sqlTemplateSkipsQuotedLiterals() {
+        ClassInfo classInfo = store.getModels().getClassInfo(Note.class);
+        SQLTemplate template = classInfo.getSQLTemplate(
+                "UPDATE note SET title = 'a:title' || :title WHERE \"pinned:rating\" = 0 AND rating = :rating");
+        assertEquals("UPDATE note SET title = 'a:title' || ? WHERE \"pinned:rating\" = 0 AND rating = ?", template.sql);
+        assertEquals(2, template.bindings.length);
+        assertEquals("title", template.bindings[0].name);
+        assertEquals("rating", template.bindings[1].name);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sqlTemplateRejectsUnknownPlaceholders() {
+        store.getModels().getClassInfo(Note.class).getSQLTemplate("UPDATE note SET rating = 1 WHERE title = :foo AND id = :id");
+    }
+
+    @Test
+    public void cursorTypes() {
+        DBCursor cursor = store.getConnection().query("SELECT 1, 2.5, 'text', x'0102', NULL", null);
+        try {
+            assertTrue(cursor.moveToNext());
+            assertEquals(DBCursor.FIELD_TYPE_INTEGER, cursor.getType(0));
+            assertEquals(DBCursor.FIELD_TYPE_FLOAT, cursor.getType(1));
+            assertEquals(DBCursor.FIELD_TYPE_STRING, cursor.getType(2));
+            assertEquals(DBCursor.FIELD_TYPE_BLOB, cursor.getType(3));
+            assertEquals(DBCursor.FIELD_TYPE_NULL, cursor.getType(4));
+            assertArrayEquals(new byte[]{1, 2}, cursor.getBlob(3));
+            assertFalse(cursor.moveToNext());
+        } finally {
+            cursor.close();
+        }
+        assertTrue(cursor.isClosed());
+    }
+}
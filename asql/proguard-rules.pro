@@ -20,4 +20,7 @@
 }
 -keepattributes DBColumn
 -keepattributes DBTable
--keepattributes DBIgnore
\ No newline at end of file
+-keepattributes DBIgnore
+-keep class * implements com.phlox.asql.Mapper {
+    public <init>();
+}
@@ -1,21 +1,28 @@
 package com.phlox.asql;
 
 import android.content.Context;
-import android.database.Cursor;
 import android.database.DatabaseErrorHandler;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
-import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+import com.phlox.asql.driver.android.AndroidConnection;
+
 import java.lang.ref.WeakReference;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -24,6 +31,12 @@ import java.util.concurrent.Executors;
  */
 public class ASQL {
     private static final String TAG = ASQL.class.getSimpleName();
+    public static final int DEFAULT_SAVE_CHUNK_SIZE = 500;
+    /**
+     * Default SQLITE_MAX_VARIABLE_NUMBER of SQLite builds prior to 3.32
+     */
+    public static final int MAX_SQL_VARIABLES = ModelOperations.MAX_SQL_VARIABLES;
+    public static final int DEFAULT_DELETE_CHUNK_SIZE = 100;
     private static WeakReference<ASQL> defaultInstance = null;
     private static InitParams defaultInitParams = null;
 
@@ -32,16 +45,63 @@ public class ASQL {
     private int databaseVersion;
     private DatabaseHelper openHelper;
     private Callback callback;
-    private ModelsInfoProcessor models = new ModelsInfoProcessor();
+    private final ModelsInfoProcessor models = new ModelsInfoProcessor();
     private ExecutorService executor;
+    /**
+     * Executor for async reads, same as {@link #executor} until {@link #enableWriteAheadLogging(int)} called
+     */
+    private volatile ExecutorService readExecutor;
+    private ExecutorService ownReadExecutor;
     private Handler mainThreadHandler;
+    private Executor mainThreadExecutor;
+    private StatementCache statementCache = new StatementCache(StatementCache.DEFAULT_MAX_SIZE);
+    private final InvalidationTracker invalidationTracker = new InvalidationTracker(this);
+    private final QueryProfiler profiler = new QueryProfiler(this);
+    private volatile AndroidConnection connection;
+    private final ModelOperations operations = new ModelOperations(models) {
+        @Override
+        DBConnection connection() {
+            return getConnection();
+        }
+
+        @Override
+        DBStatement acquireStatement(String sql) {
+            return ASQL.this.acquireStatement(sql);
+        }
+
+        @Override
+        void releaseStatement(String sql, DBStatement statement) {
+            statementCache.release(sql, statement);
+        }
+
+        @Override
+        DBCursor query(String sql, Object[] args) {
+            return rawQuery(sql, args);
+        }
+
+        @Override
+        long profileStart() {
+            return profiler.start();
+        }
+
+        @Override
+        void profileEnd(String sql, long start, int rows) {
+            profiler.end(sql, start, rows);
+        }
+
+        @Override
+        void onTableChanged(String table) {
+            invalidationTracker.notifyTablesChanged(table);
+        }
+    };
 
     private static class InitParams {
-        String databaseName; int databaseVersion; Callback callback;
-        public InitParams(String databaseName, int databaseVersion, Callback callback) {
+        String databaseName; int databaseVersion; Callback callback; Class[] models;
+        public InitParams(String databaseName, int databaseVersion, Callback callback, Class[] models) {
             this.databaseName = databaseName;
             this.databaseVersion = databaseVersion;
             this.callback = callback;
+            this.models = models;
         }
     }
 
@@ -88,7 +148,14 @@ public class ASQL {
         this.callback = callback;
         openHelper = new DatabaseHelper(context, databaseName, null, databaseVersion);
         executor = callback.getExecutorService();
+        readExecutor = executor;
         mainThreadHandler = new Handler(Looper.getMainLooper());
+        mainThreadExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mainThreadHandler.post(command);
+            }
+        };
     }
 
     public Callback getCallback() {
@@ -96,7 +163,14 @@ public class ASQL {
     }
 
     public static void initDefaultInstance(String databaseName, int databaseVersion, Callback callback) {
-        defaultInitParams = new InitParams(databaseName, databaseVersion, callback);
+        defaultInitParams = new InitParams(databaseName, databaseVersion, callback, null);
+    }
+
+    /**
+     * @param models model classes to register (see {@link #registerModels(Class[])}) when default instance created
+     */
+    public static void initDefaultInstance(String databaseName, int databaseVersion, Callback callback, Class... models) {
+        defaultInitParams = new InitParams(databaseName, databaseVersion, callback, models);
     }
 
     public static ASQL getDefault(Context applicationContext) {
@@ -106,6 +180,9 @@ public class ASQL {
                 throw new IllegalStateException("Ypu must first call ASQL.initDefaultInstance method");
             }
             asql = new ASQL(applicationContext, defaultInitParams.databaseName, defaultInitParams.databaseVersion, defaultInitParams.callback);
+            if (defaultInitParams.models != null && defaultInitParams.models.length > 0) {
+                asql.registerModels(defaultInitParams.models);
+            }
             defaultInstance = new WeakReference<>(asql);
         } else {
             asql = defaultInstance.get();
@@ -113,367 +190,600 @@ public class ASQL {
         return asql;
     }
 
-    public SQLiteOpenHelper getOpenHelper() {
-        return openHelper;
-    }
-
-    public SQLiteDatabase getDB() {
-        return openHelper.getWritableDatabase();
-    }
-
-    public long count(Class type) throws SQLException {
-        String query = "SELECT count(*) FROM " + models.getClassInfo(type).tableName;
-        Cursor cursor = openHelper.getReadableDatabase().rawQuery(query, null);
-
-        try {
-            cursor.moveToNext();
-            return cursor.getLong(0);
-        } finally {
-            cursor.close();
+    /**
+     * Enables write-ahead logging, so reads do not wait for writes and can run in parallel, and
+     * routes async reads (count, find, queryAll, loadAll, pager) to separate pool of readerThreads
+     * threads while writes stay serialized on executor from {@link Callback#getExecutorService()}.
+     * On Android older than 4.1 should be called before database is opened.
+     */
+    public synchronized void enableWriteAheadLogging(int readerThreads) {
+        if (readerThreads < 1) {
+            throw new IllegalArgumentException("readerThreads should be positive");
+        }
+        openHelper.writeAheadLoggingEnabled = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            openHelper.setWriteAheadLoggingEnabled(true);
         }
+        if (ownReadExecutor != null) {
+            ownReadExecutor.shutdown();
+        }
+        ownReadExecutor = Executors.newFixedThreadPool(readerThreads);
+        readExecutor = ownReadExecutor;
     }
 
-    public void count(final Class type, final ResultCallback<Long> callback) {
+    /**
+     * Parses metadata of models (fields, columns, generated mappers) on DB executor in advance,
+     * so first query on cold start does not pay reflection cost on caller (UI) thread.
+     */
+    public void registerModels(final Class... types) {
         executor.execute(new Runnable() {
             @Override
             public void run() {
-                Long result = null;
-                Exception exception = null;
                 try {
-                    result = count(type);
+                    models.registerModels(types);
                 } catch (Exception e) {
-                    exception = e;
+                    Log.e(TAG, "Can not register models:", e);
                 }
-                final Long _result = result;
-                final Exception _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_result, _exception);
-                    }
-                });
             }
         });
     }
 
-    public int delete(Collection items) throws SQLException{
-        if (items == null || items.isEmpty()) return 0;
-        ClassInfo classInfo = models.getClassInfo(items.iterator().next().getClass());
-        StringBuffer sb = new StringBuffer(items.size()*2);
-        for (int i = 0; i < items.size(); i++) {
-            sb.append('?');
-            if (i != items.size() - 1) {
-                sb.append(',');
+    /**
+     * Creates tables and indexes of models (see {@link SchemaGenerator}),
+     * should be called from {@link Callback#onCreate(ASQL, SQLiteDatabase)}
+     */
+    public void createTables(SQLiteDatabase db, Class... types) {
+        DBConnection connection = new AndroidConnection(db);
+        for (Class type : types) {
+            SchemaGenerator.createTable(connection, models.getClassInfo(type));
+        }
+    }
+
+    /**
+     * Compares schema of models with database and creates missing tables, columns and indexes,
+     * should be called from {@link Callback#onUpgrade(ASQL, SQLiteDatabase, int, int)}.
+     * Existing columns and indexes are not changed or dropped.
+     * @return executed statements
+     */
+    public List<String> upgradeSchema(SQLiteDatabase db, Class... types) {
+        DBConnection connection = new AndroidConnection(db);
+        List<String> executed = new ArrayList<>();
+        for (Class type : types) {
+            List<String> statements = SchemaGenerator.upgradeTable(connection, models.getClassInfo(type));
+            for (String sql : statements) {
+                Log.i(TAG, "Schema upgrade: " + sql);
             }
+            executed.addAll(statements);
         }
-        String valuesPlaceholdersCommaSeparated = sb.toString();
-        String query = String.format("DELETE FROM %s WHERE %s IN (%s)", classInfo.tableName,
-                classInfo.primaryKey.name, valuesPlaceholdersCommaSeparated);
-        SQLiteStatement statement = openHelper.getWritableDatabase().compileStatement(query);
-        int i = 1;
-        for (Object item : items) {
-            ModelsInfoProcessor.bindFieldValueToPreparedStatement(classInfo.primaryKey.field, item, i, statement);
-            i++;
+        return executed;
+    }
+
+    /**
+     * Driver level connection to database of this instance, mapping layer works through it
+     * (see {@link ModelStore} for using models without Android). Observers of tables changed inside
+     * transaction started through it are notified once after commit (and not at all on rollback).
+     */
+    public DBConnection getConnection() {
+        SQLiteDatabase db = openHelper.getWritableDatabase();
+        AndroidConnection current = connection;
+        if (current == null || current.getDatabase() != db) {
+            current = new AndroidConnection(db, invalidationTracker.transactionListener);
+            connection = current;
         }
+        return current;
+    }
+
+    /**
+     * Checks out compiled statement for sql from statement cache, statement must be returned by
+     * {@link StatementCache#release(String, DBStatement)} after use
+     */
+    DBStatement acquireStatement(String sql) throws SQLException {
         try {
-            return statement.executeUpdateDelete();
-        } finally {
-            statement.close();
+            return statementCache.acquire(getConnection(), sql);
+        } catch (SQLException e) {
+            Log.e(TAG, "SQL Error:", e);
+            throw e;
         }
     }
 
-    public void delete(final Collection items, final ResultCallback<Integer> callback) {
-        executor.execute(new Runnable() {
+    /**
+     * Runs query with typed arguments (see {@link DBConnection#query(String, Object[])}) instead of
+     * binding all of them as strings
+     */
+    DBCursor rawQuery(String sql, Object[] args) throws SQLException {
+        try {
+            return getConnection().query(sql, args);
+        } catch (SQLException e) {
+            Log.e(TAG, "SQL Error:", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Profiles query of lazily read cursor: query is actually executed when first window of rows
+     * is filled, so this forces it by getCount() (only while profiler is enabled)
+     */
+    void profileCursor(String sql, DBCursor cursor) {
+        long start = profiler.start();
+        if (start != 0) {
+            profiler.end(sql, start, cursor.getCount());
+        }
+    }
+
+    /**
+     * Cache of compiled statements used by this instance (size can be changed and hit/miss
+     * counters inspected through it). Cursor queries are cached by Android
+     * itself (see {@link SQLiteDatabase#setMaxSqlCacheSize(int)}).
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * Closes cached statements and database. Instance can not be used after that.
+     */
+    public void close() {
+        if (ownReadExecutor != null) {
+            ownReadExecutor.shutdown();
+        }
+        statementCache.close();
+        openHelper.close();
+        if (defaultInstance != null && defaultInstance.get() == this) {
+            defaultInstance = null;
+        }
+    }
+
+    /**
+     * Runs operation on DB (write) executor
+     * @return handle to cancel operation, wait for result, deliver it to callback or chain next operation
+     */
+    public <T> DBFuture<T> submit(DBOperation<T> operation) {
+        return submit(executor, operation);
+    }
+
+    /**
+     * Runs read-only operation on executor for reads (separate pool when write-ahead logging enabled)
+     */
+    public <T> DBFuture<T> submitRead(DBOperation<T> operation) {
+        return submit(readExecutor, operation);
+    }
+
+    private <T> DBFuture<T> submit(Executor target, DBOperation<T> operation) {
+        DBFuture<T> future = new DBFuture<>(this, operation);
+        future.start(target);
+        return future;
+    }
+
+    /**
+     * Default executor to deliver async results on
+     */
+    public Executor getMainThreadExecutor() {
+        return mainThreadExecutor;
+    }
+
+    /**
+     * Tracker of table changes used by observable queries
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidationTracker;
+    }
+
+    /**
+     * @return profiler of statements executed through this instance, disabled by default
+     */
+    public QueryProfiler getProfiler() {
+        return profiler;
+    }
+
+    Executor getWriteExecutor() {
+        return executor;
+    }
+
+    Executor getReadExecutor() {
+        return readExecutor;
+    }
+
+    ModelsInfoProcessor getModels() {
+        return models;
+    }
+
+    public SQLiteOpenHelper getOpenHelper() {
+        return openHelper;
+    }
+
+    public SQLiteDatabase getDB() {
+        return openHelper.getWritableDatabase();
+    }
+
+    public long count(Class type) throws SQLException {
+        return operations.count(type);
+    }
+
+    public DBFuture<Long> count(final Class type, ResultCallback<Long> callback) {
+        return submitRead(new DBOperation<Long>() {
             @Override
-            public void run() {
-                Integer result = null;
-                Exception exception = null;
-                try {
-                    result = delete(items);
-                } catch (Exception e) {
-                    exception = e;
-                }
-                final Integer _result = result;
-                final Exception _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_result, _exception);
-                    }
-                });
+            public Long run(ASQL asql) throws Exception {
+                return count(type);
             }
-        });
+        }).onDone(callback);
+    }
+
+    public int delete(Collection items) throws SQLException{
+        return delete(items, DEFAULT_DELETE_CHUNK_SIZE);
+    }
+
+    /**
+     * Deletes items by primary key with "DELETE ... WHERE key IN (?,...)" statements of
+     * chunkSize parameters each, all chunks are executed in single transaction.
+     * Collection may contain objects of different model classes.
+     * @param chunkSize count of keys deleted by one statement, from 1 to {@link #MAX_SQL_VARIABLES}
+     * @return count of deleted rows
+     */
+    public int delete(Collection items, int chunkSize) throws SQLException{
+        return operations.delete(items, chunkSize);
+    }
+
+    public DBFuture<Integer> delete(final Collection items, ResultCallback<Integer> callback) {
+        return submit(new DBOperation<Integer>() {
+            @Override
+            public Integer run(ASQL asql) throws Exception {
+                return delete(items);
+            }
+        }).onDone(callback);
     }
 
     public int delete(Object entity) throws SQLException{
-        ClassInfo classInfo = models.getClassInfo(entity.getClass());
-        String query = String.format("DELETE FROM %s WHERE %s=?", classInfo.tableName,
-                classInfo.primaryKey.name);
-        SQLiteStatement statement = openHelper.getWritableDatabase().compileStatement(query);
-        ModelsInfoProcessor.bindFieldValueToPreparedStatement(classInfo.primaryKey.field, entity, 1, statement);
-        try {
-            return statement.executeUpdateDelete();
-        } finally {
-            statement.close();
-        }
+        return operations.delete(entity);
     }
 
-    public void delete(final Object entity, final ResultCallback<Integer> callback) {
-        executor.execute(new Runnable() {
+    public DBFuture<Integer> delete(final Object entity, ResultCallback<Integer> callback) {
+        return submit(new DBOperation<Integer>() {
             @Override
-            public void run() {
-                Integer result = null;
-                Exception exception = null;
-                try {
-                    result = delete(entity);
-                } catch (Exception e) {
-                    exception = e;
-                }
-                final Integer _result = result;
-                final Exception _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_result, _exception);
-                    }
-                });
+            public Integer run(ASQL asql) throws Exception {
+                return delete(entity);
             }
-        });
+        }).onDone(callback);
     }
 
-    public <T> T find(Class<T> type, String whereClause, String... selectionArgs) throws IllegalAccessException, InstantiationException {
-        ClassInfo classInfo = models.getClassInfo(type);
-        Cursor cursor;
-        try {
-            String query = String.format("SELECT * FROM %s WHERE %s", classInfo.tableName, whereClause);
-            cursor = openHelper.getReadableDatabase().rawQuery(query, selectionArgs);
-        } catch (SQLException e) {
-            Log.e(TAG, "SQL Error:", e);
-            throw e;
-        }
+    /**
+     * Finds entity by integer primary key, served from entity cache when model has one
+     * (see {@link com.phlox.asql.annotations.DBTable#cacheSize()})
+     */
+    public <T> T findByPrimaryKey(Class<T> type, long key) throws IllegalAccessException, InstantiationException {
+        return operations.findByPrimaryKey(type, key);
+    }
 
-        T result = null;
-        try {
-            if (cursor.moveToNext()) {
-                result = (T) models.instantiateObjectFromCursor(type, cursor);
+    public <T> DBFuture<T> findByPrimaryKey(final Class<T> type, final long key, ResultCallback<T> callback) {
+        return submitRead(new DBOperation<T>() {
+            @Override
+            public T run(ASQL asql) throws Exception {
+                return findByPrimaryKey(type, key);
             }
-        } finally {
-            cursor.close();
+        }).onDone(callback);
+    }
+
+    /**
+     * @return entity cache of model or null if model is not cached
+     */
+    public EntityCache getEntityCache(Class type) {
+        return models.getClassInfo(type).cache;
+    }
+
+    /**
+     * Drops all cached entities of model, should be called after changing its table with exec* methods
+     * or directly through database
+     */
+    public void invalidateCache(Class type) {
+        EntityCache cache = models.getClassInfo(type).cache;
+        if (cache != null) {
+            cache.clear();
         }
-        return result;
     }
 
-    public <T> void find(final Class<T> type, final String whereClause, final ResultCallback<T> callback, final String... selectionArgs) {
-        executor.execute(new Runnable() {
+    public void invalidateCache(Class type, long key) {
+        EntityCache cache = models.getClassInfo(type).cache;
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    public <T> T find(Class<T> type, String whereClause, String... selectionArgs) throws IllegalAccessException, InstantiationException {
+        return operations.find(type, null, whereClause, selectionArgs);
+    }
+
+    /**
+     * Same as {@link #find(Class, String, String...)} but reads only given fields (and primary key),
+     * other fields of returned object keep default values. Such object should be saved only if model
+     * has change tracking (see {@link com.phlox.asql.annotations.DBTable#trackChanges()}), otherwise
+     * not loaded columns will be overwritten.
+     * @param fields names of fields or columns to read
+     */
+    public <T> T find(Class<T> type, String[] fields, String whereClause, String... selectionArgs) throws IllegalAccessException, InstantiationException {
+        return operations.find(type, fields, whereClause, selectionArgs);
+    }
+
+    /**
+     * Loads only given fields (and primary key) of rows matching whereClause, so large columns not
+     * needed by caller are not read from database at all (see {@link #find(Class, String[], String, String...)})
+     * @param whereClause filter or null to load all rows
+     */
+    public <T> List<T> findAll(Class<T> type, String[] fields, String whereClause, String... selectionArgs) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return operations.findAll(type, fields, whereClause, selectionArgs);
+    }
+
+    public <T> DBFuture<List<T>> findAll(final Class<T> type, final String[] fields, final String whereClause,
+                                         ResultCallback<List<T>> callback, final String... selectionArgs) {
+        return submitRead(new DBOperation<List<T>>() {
             @Override
-            public void run() {
-                T result = null;
-                Exception exception = null;
-                try {
-                    result = find(type, whereClause, selectionArgs);
-                } catch (Exception e) {
-                    exception = e;
-                }
-                final T _result = result;
-                final Exception _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_result, _exception);
-                    }
-                });
+            public List<T> run(ASQL asql) throws Exception {
+                return findAll(type, fields, whereClause, selectionArgs);
             }
-        });
+        }).onDone(callback);
     }
 
-    public long save(Object entity) throws IllegalAccessException {
-        ClassInfo classInfo = models.getClassInfo(entity.getClass());
-        Field keyField = null;
-        if (classInfo.primaryKey != null) {
-            keyField = classInfo.primaryKey.field;
-            if (!keyField.isAccessible()) {
-                keyField.setAccessible(true);
+    public <T> DBFuture<T> find(final Class<T> type, final String whereClause, ResultCallback<T> callback, final String... selectionArgs) {
+        return submitRead(new DBOperation<T>() {
+            @Override
+            public T run(ASQL asql) throws Exception {
+                return find(type, whereClause, selectionArgs);
             }
-        }
-        if (keyField != null && (keyField.getType().equals(long.class) || keyField.getType().equals(int.class) || keyField.getType().equals(short.class)) &&
-                keyField.getLong(entity) == 0) {
-            //look like we attempt to save row with autoincrement key
-            SQLiteStatement statement = classInfo.fillInsertAutoincrementPreparedStatement(this, entity);
-            long result = statement.executeInsert();
-            if (result != -1) {
-                if (keyField.getType().equals(long.class))
-                    keyField.setLong(entity, result);
-                else if (keyField.getType().equals(int.class))
-                    keyField.setInt(entity, (int)result);
-                else if (keyField.getType().equals(short.class))
-                    keyField.setShort(entity, (short) result);
+        }).onDone(callback);
+    }
+
+    /**
+     * Inserts or replaces row of entity. Already stored entities of models with change tracking
+     * (see {@link com.phlox.asql.annotations.DBTable#trackChanges()}) are updated by
+     * "UPDATE ... SET" of changed columns only.
+     * @return row id of entity
+     */
+    public long save(Object entity) throws IllegalAccessException {
+        return operations.save(entity);
+    }
+
+    public DBFuture<Long> save(final Object entity, ResultCallback<Long> callback) {
+        return submit(new DBOperation<Long>() {
+            @Override
+            public Long run(ASQL asql) throws Exception {
+                return save(entity);
             }
-            return result;
-        } else {
-            SQLiteStatement statement = classInfo.fillSavePreparedStatement(this, entity);
-            return statement.executeInsert();
-        }
+        }).onDone(callback);
     }
 
-    public void save(final Object entity, final ResultCallback<Long> callback) {
-        executor.execute(new Runnable() {
+    public int saveAll(Collection<?> entities) throws IllegalAccessException {
+        return saveAll(entities, DEFAULT_SAVE_CHUNK_SIZE);
+    }
+
+    /**
+     * Saves entities same way as {@link #save(Object)} but inside transactions instead of
+     * autocommit mode. Generated keys are written back into entities.
+     * @param chunkSize max count of entities committed in one transaction, 0 or less to save all
+     *                  entities in single transaction. If some entity fails to save previously
+     *                  committed chunks are kept in DB.
+     * @return count of saved entities
+     */
+    public int saveAll(Collection<?> entities, int chunkSize) throws IllegalAccessException {
+        return operations.saveAll(entities, chunkSize);
+    }
+
+    public DBFuture<Integer> saveAll(final Collection<?> entities, final ResultCallback<Integer> callback) {
+        return saveAll(entities, DEFAULT_SAVE_CHUNK_SIZE, callback);
+    }
+
+    public DBFuture<Integer> saveAll(final Collection<?> entities, final int chunkSize, ResultCallback<Integer> callback) {
+        return submit(new DBOperation<Integer>() {
             @Override
-            public void run() {
-                Long result = null;
-                Exception exception = null;
-                try {
-                    result = save(entity);
-                } catch (Exception e) {
-                    exception = e;
-                }
-                final Long _result = result;
-                final Exception _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_result, _exception);
-                    }
-                });
+            public Integer run(ASQL asql) throws Exception {
+                return saveAll(entities, chunkSize);
             }
-        });
+        }).onDone(callback);
     }
 
     public void clear(Class type) throws SQLException{
         ClassInfo classInfo = models.getClassInfo(type);
         String query = "DELETE FROM " + classInfo.tableName;
         exec(query);
+        invalidateCache(type);
+        if (classInfo.snapshots != null) {
+            classInfo.snapshots.clear();
+        }
     }
 
-    public void clear(Class type, final ExecCallback callback) {
-        ClassInfo classInfo = models.getClassInfo(type);
-        String query = "DELETE FROM " + classInfo.tableName;
-        exec(query, callback);
+    public DBFuture<Void> clear(final Class type, ExecCallback callback) {
+        return submit(new DBOperation<Void>() {
+            @Override
+            public Void run(ASQL asql) throws Exception {
+                clear(type);
+                return null;
+            }
+        }).onDone(toResultCallback(callback));
     }
 
     public <T> List<T> loadAll(Class<T> type) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        ClassInfo classInfo = models.getClassInfo(type);
-        String query = "SELECT * FROM " + classInfo.tableName;
-        return queryAll(type, query);
+        return queryAll(type, models.getClassInfo(type).getSelectSql());
     }
 
-    public <T> void loadAll(final Class<T> type, final ResultCallback<List<T>> callback) {
-        ClassInfo classInfo = models.getClassInfo(type);
-        String query = "SELECT * FROM " + classInfo.tableName;
-        queryAll(type, query, callback);
+    public <T> DBFuture<List<T>> loadAll(final Class<T> type, final ResultCallback<List<T>> callback) {
+        return queryAll(type, models.getClassInfo(type).getSelectSql(), callback);
     }
 
     public <T> List<T> queryAll(Class<T> type, String query, String... selectionArgs) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        Cursor cursor;
-        try {
-            cursor = openHelper.getReadableDatabase().rawQuery(query, selectionArgs);
-        } catch (SQLException e) {
-            Log.e(TAG, "SQL Error:", e);
-            throw e;
-        }
-        List<T> result = null;
+        return operations.queryAll(type, query, selectionArgs);
+    }
+
+    public <T> DBFuture<List<T>> queryAll(final Class<T> type, final String query, ResultCallback<List<T>> callback, final String... selectionArgs) {
+        return submitRead(new DBOperation<List<T>>() {
+            @Override
+            public List<T> run(ASQL asql) throws Exception {
+                return queryAll(type, query, selectionArgs);
+            }
+        }).onDone(callback);
+    }
+
+    /**
+     * Runs query and returns iterator that hydrates result rows one by one as caller advances,
+     * so large results can be processed in constant memory. Iterator must be closed if it was not
+     * read till the end.
+     */
+    public <T> CloseableIterator<T> stream(Class<T> type, String query, String... selectionArgs) {
+        return stream(type, false, query, selectionArgs);
+    }
+
+    /**
+     * Same as {@link #stream(Class, String, String...)} but every step returns the same object filled
+     * with values of next row (NULL values reset fields to 0/false/null), so no objects
+     * allocated per row. Returned objects should not be kept by caller.
+     */
+    public <T> CloseableIterator<T> streamReusingInstance(Class<T> type, String query, String... selectionArgs) {
+        return stream(type, true, query, selectionArgs);
+    }
+
+    private <T> CloseableIterator<T> stream(Class<T> type, boolean reuseInstance, String query, String... selectionArgs) {
+        DBCursor cursor = rawQuery(query, selectionArgs);
+        profileCursor(query, cursor);
+        return models.iterateObjectsFromCursor(type, cursor, reuseInstance);
+    }
+
+    /**
+     * Reads columns of raw query result into primitive buffers (see {@link ColumnBuffers}),
+     * columns are found by their names in result
+     * @param args arguments bound by their types, see {@link DBConnection#query(String, Object[])}
+     * @return count of read rows
+     */
+    public int readColumns(String query, ColumnBuffers columns, Object... args) {
+        return readColumns(query, columns, false, args);
+    }
+
+    public DBFuture<Integer> readColumns(final String query, final ColumnBuffers columns,
+                                        ResultCallback<Integer> callback, final Object... args) {
+        return submitRead(new DBOperation<Integer>() {
+            @Override
+            public Integer run(ASQL asql) throws Exception {
+                return readColumns(query, columns, false, args);
+            }
+        }).onDone(callback);
+    }
+
+    int readColumns(String query, ColumnBuffers columns, boolean positional, Object[] args) {
+        DBCursor cursor = rawQuery(query, args);
+        long start = profiler.start();
         try {
-            result = (List<T>) models.instantiateObjectsFromCursor(type, cursor);
+            int rows = columns.read(cursor, positional);
+            profiler.end(query, start, rows);
+            return rows;
         } finally {
             cursor.close();
         }
-        return result;
     }
 
-    public <T> void queryAll(final Class<T> type, final String query, final ResultCallback<List<T>> callback, final String... selectionArgs) {
-        executor.execute(new Runnable() {
-            @Override
-            public void run() {
-                List<T> result = null;
-                Exception exception = null;
-                try {
-                    result = queryAll(type, query, selectionArgs);
-                } catch (Exception e) {
-                    exception = e;
-                }
-                final List<T> _result = result;
-                final Exception _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_result, _exception);
-                    }
-                });
-            }
-        });
+    /**
+     * @return chunked reader and writer of large BLOB column, see {@link BlobColumn}
+     */
+    public BlobColumn blobColumn(Class type, String field) {
+        return new BlobColumn(this, type, field, BlobColumn.DEFAULT_CHUNK_SIZE);
     }
 
-    public int execUpdateDelete(String sql, Object values) throws SQLException {
-        SQLiteStatement statement = null;
-        try {
-            statement = openHelper.getWritableDatabase().compileStatement(models.formatSQL(sql, values));
-        } catch (SQLException e) {
-            Log.e(TAG, "SQL Error:", e);
-            throw e;
+    /**
+     * @param chunkSize bytes read or written by one statement
+     */
+    public BlobColumn blobColumn(Class type, String field, int chunkSize) {
+        return new BlobColumn(this, type, field, chunkSize);
+    }
+
+    /**
+     * @return fluent query builder of model
+     */
+    public <T> Query<T> query(Class<T> type) {
+        return new Query<>(this, type);
+    }
+
+    /**
+     * Runs query now and every time tables it reads from are changed through this ASQL instance,
+     * see {@link ObservableQuery}
+     */
+    public <T> ObservableQuery<T> observeQuery(Class<T> type, String query, ResultCallback<List<T>> callback, String... selectionArgs) {
+        Set<String> tables = InvalidationTracker.parseTableNames(query);
+        if (tables.isEmpty()) {
+            tables = Collections.singleton(models.getClassInfo(type).tableName);
         }
+        ObservableQuery<T> observableQuery = new ObservableQuery<>(this, type, query, callback, selectionArgs);
+        observableQuery.start(tables);
+        return observableQuery;
+    }
+
+    public <T> ObservableQuery<T> observeAll(Class<T> type, ResultCallback<List<T>> callback) {
+        return observeQuery(type, models.getClassInfo(type).getSelectSql(), callback);
+    }
+
+    /**
+     * Pager over all rows of model table ordered by primary key
+     */
+    public <T> KeysetPager<T> pager(Class<T> type, int pageSize) {
+        return new KeysetPager<>(this, type, null, false, pageSize, null);
+    }
+
+    /**
+     * @param sortColumn indexed NOT NULL column to order and seek by, or null to use primary key
+     * @param whereClause optional filter, can contain "?" placeholders for selectionArgs
+     */
+    public <T> KeysetPager<T> pager(Class<T> type, String sortColumn, boolean descending, int pageSize,
+                                    String whereClause, String... selectionArgs) {
+        return new KeysetPager<>(this, type, sortColumn, descending, pageSize, whereClause, selectionArgs);
+    }
+
+    public int execUpdateDelete(String sql, Object values) throws SQLException {
+        SQLTemplate template = models.getClassInfo(values.getClass()).getSQLTemplate(sql);
+        DBStatement statement = acquireStatement(template.sql);
         try {
-            return statement.executeUpdateDelete();
+            template.bind(values, statement);
+            long start = profiler.start();
+            int affectedRows = statement.executeUpdateDelete();
+            profiler.end(template.sql, start, affectedRows);
+            invalidationTracker.notifySqlExecuted(template.sql);
+            return affectedRows;
         } finally {
-            statement.close();
+            statementCache.release(template.sql, statement);
         }
     }
 
-    public void execUpdateDelete(final String sql, final Object values, final AffectedRowsResultCallback callback) {
-        executor.execute(new Runnable() {
+    public DBFuture<Integer> execUpdateDelete(final String sql, final Object values, final AffectedRowsResultCallback callback) {
+        return submit(new DBOperation<Integer>() {
             @Override
-            public void run() {
-                int affectedRows = 0;
-                SQLException exception = null;
-                try {
-                    affectedRows = execUpdateDelete(sql, values);
-                } catch (SQLException e) {
-                    exception = e;
-                }
-                final int _affectedRows = affectedRows;
-                final SQLException _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_affectedRows, _exception);
-                    }
-                });
+            public Integer run(ASQL asql) throws Exception {
+                return execUpdateDelete(sql, values);
+            }
+        }).onDone(callback == null ? null : new ResultCallback<Integer>() {
+            @Override
+            public void onDone(Integer result, Exception exception) {
+                callback.onDone(result != null ? result : 0, toSQLException(exception));
             }
         });
     }
 
     public long execInsert(String sql, Object values) throws SQLException {
-        SQLiteStatement statement = null;
+        SQLTemplate template = models.getClassInfo(values.getClass()).getSQLTemplate(sql);
+        DBStatement statement = acquireStatement(template.sql);
         try {
-            statement = openHelper.getWritableDatabase().compileStatement(models.formatSQL(sql, values));
-        } catch (SQLException e) {
-            Log.e(TAG, "SQL Error:", e);
-            throw e;
-        }
-        try {
-            return statement.executeInsert();
+            template.bind(values, statement);
+            long start = profiler.start();
+            long lastInsertRowId = statement.executeInsert();
+            profiler.end(template.sql, start, lastInsertRowId != -1 ? 1 : 0);
+            invalidationTracker.notifySqlExecuted(template.sql);
+            return lastInsertRowId;
         } finally {
-            statement.close();
+            statementCache.release(template.sql, statement);
         }
     }
 
-    public void execInsert(final String sql, final Object values, final InsertResultCallback callback) {
-        executor.execute(new Runnable() {
+    public DBFuture<Long> execInsert(final String sql, final Object values, final InsertResultCallback callback) {
+        return submit(new DBOperation<Long>() {
             @Override
-            public void run() {
-                long lastInsertRowId = 0;
-                SQLException exception = null;
-                try {
-                    lastInsertRowId = execInsert(sql, values);
-                } catch (SQLException e) {
-                    exception = e;
-                }
-                final long _lastInsertRowId = lastInsertRowId;
-                final SQLException _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_lastInsertRowId, _exception);
-                    }
-                });
+            public Long run(ASQL asql) throws Exception {
+                return execInsert(sql, values);
+            }
+        }).onDone(callback == null ? null : new ResultCallback<Long>() {
+            @Override
+            public void onDone(Long result, Exception exception) {
+                callback.onDone(result != null ? result : 0, toSQLException(exception));
             }
         });
     }
@@ -482,51 +792,62 @@ public class ASQL {
         exec(sql, null);
     }
 
-    public void execAsync(final String sql, final ExecCallback callback) {
-        execAsync(sql, null, callback);
+    public DBFuture<Void> execAsync(final String sql, final ExecCallback callback) {
+        return execAsync(sql, null, callback);
     }
 
     public void exec(String sql, Object values) throws SQLException {
         if (values == null) {
+            long start = profiler.start();
             openHelper.getWritableDatabase().execSQL(sql);
+            profiler.end(sql, start, -1);
+            invalidationTracker.notifySqlExecuted(sql);
             return;
         }
-        SQLiteStatement statement = null;
-        try {
-            statement = openHelper.getWritableDatabase().compileStatement(models.formatSQL(sql, values));
-        } catch (SQLException e) {
-            Log.e(TAG, "SQL Error:", e);
-            throw e;
-        }
+        SQLTemplate template = models.getClassInfo(values.getClass()).getSQLTemplate(sql);
+        DBStatement statement = acquireStatement(template.sql);
         try {
+            template.bind(values, statement);
+            long start = profiler.start();
             statement.execute();
+            profiler.end(template.sql, start, -1);
+            invalidationTracker.notifySqlExecuted(template.sql);
         } finally {
-            statement.close();                                                   
+            statementCache.release(template.sql, statement);
         }
     }
 
-    public void execAsync(final String sql, final Object values, final ExecCallback callback) {
-        executor.execute(new Runnable() {
+    public DBFuture<Void> execAsync(final String sql, final Object values, final ExecCallback callback) {
+        return submit(new DBOperation<Void>() {
             @Override
-            public void run() {
-                SQLException exception = null;
-                try {
-                    exec(sql, values);
-                } catch (SQLException e) {
-                    exception = e;
-                }
-                final SQLException _exception = exception;
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        callback.onDone(_exception);
-                    }
-                });
+            public Void run(ASQL asql) throws Exception {
+                exec(sql, values);
+                return null;
             }
-        });
+        }).onDone(toResultCallback(callback));
+    }
+
+    private static ResultCallback<Void> toResultCallback(final ExecCallback callback) {
+        if (callback == null) return null;
+        return new ResultCallback<Void>() {
+            @Override
+            public void onDone(Void result, Exception exception) {
+                callback.onDone(toSQLException(exception));
+            }
+        };
+    }
+
+    private static SQLException toSQLException(Exception exception) {
+        if (exception == null || exception instanceof SQLException) {
+            return (SQLException) exception;
+        }
+        SQLException sqlException = new SQLException(exception.toString());
+        sqlException.initCause(exception);
+        return sqlException;
     }
 
     private class DatabaseHelper extends SQLiteOpenHelper {
+        volatile boolean writeAheadLoggingEnabled = false;
 
         public DatabaseHelper(Context context, String name, SQLiteDatabase.CursorFactory factory, int version) {
             super(context, name, factory, version, new DatabaseErrorHandler() {
@@ -553,5 +874,13 @@ public class ASQL {
             }
         }
 
+        @Override
+        public void onOpen(SQLiteDatabase db) {
+            //since Android 4.1 it is handled by setWriteAheadLoggingEnabled
+            if (writeAheadLoggingEnabled && Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN && !db.isReadOnly()) {
+                db.enableWriteAheadLogging();
+            }
+        }
+
     }
 }
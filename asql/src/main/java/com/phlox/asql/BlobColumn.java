@@ -0,0 +1,229 @@
+package com.phlox.asql;
+
+import android.database.SQLException;
+
+import com.phlox.asql.driver.BindArgs;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chunked access to BLOB column of model rows for large values (thumbnails, cached payloads):
+ * reads are done by "substr(column, offset, chunkSize)" queries and writes by appending chunks,
+ * so value of several MB never passes through one CursorWindow (2MB on most devices) and is not
+ * fully buffered in heap. Model class should not read such column in list queries (use projection
+ * or fields selection), otherwise whole value is still loaded with object.
+ * Rows are addressed by integer primary key. Database text encoding should be UTF-8 (Android default),
+ * because chunks are concatenated by "||" operator.
+ * <p>
+ * {@link #write(long, InputStream)} does not hold transaction while stream is read: chunks are
+ * staged in TEMP table by separate statements, merged there pairwise (log2(chunks) rounds, so
+ * value of n bytes costs O(n log chunks) copying instead of O(n^2) of appending every chunk to the
+ * row) and then moved into the row by single UPDATE, which holds write lock only for one copy of value.
+ * TEMP tables are kept in memory on Android, so whole value is held by SQLite (not Java heap)
+ * until it is moved into the row.
+ */
+public class BlobColumn {
+    /**
+     * Fits into CursorWindow (2MB on most devices) of chunk reads
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    private static final String CHUNKS_TABLE = "asql_blob_chunks";
+    private static final String CREATE_CHUNKS_SQL = "CREATE TEMP TABLE IF NOT EXISTS " + CHUNKS_TABLE +
+            " (write_id INTEGER NOT NULL, seq INTEGER NOT NULL, data BLOB NOT NULL)";
+    private static final String INSERT_CHUNK_SQL = "INSERT INTO " + CHUNKS_TABLE + " (write_id, seq, data) VALUES (?, ?, ?)";
+    /**
+     * Appends chunk seq + stride to every chunk with seq divisible by 2 * stride
+     */
+    private static final String MERGE_CHUNKS_SQL = "UPDATE " + CHUNKS_TABLE + " SET data = CAST(data || ifnull(" +
+            "(SELECT c.data FROM " + CHUNKS_TABLE + " c WHERE c.write_id = ? AND c.seq = " + CHUNKS_TABLE + ".seq + ?), X'')" +
+            " AS BLOB) WHERE write_id = ? AND seq % ? = 0";
+    private static final String DELETE_MERGED_CHUNKS_SQL = "DELETE FROM " + CHUNKS_TABLE + " WHERE write_id = ? AND seq % ? = ?";
+    private static final String DELETE_CHUNKS_SQL = "DELETE FROM " + CHUNKS_TABLE + " WHERE write_id = ?";
+    private static final AtomicLong lastWriteId = new AtomicLong();
+
+    private final ASQL asql;
+    private final ClassInfo classInfo;
+    private final int chunkSize;
+    private final String lengthSql;
+    private final String readSql;
+    private final String assignSql;
+
+    BlobColumn(ASQL asql, Class type, String field, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize should be positive");
+        }
+        this.asql = asql;
+        this.chunkSize = chunkSize;
+        classInfo = asql.getModels().getClassInfo(type);
+        if (!classInfo.hasIntegerPrimaryKey()) {
+            throw new IllegalArgumentException(type.getName() + " has no integer primary key");
+        }
+        ColumnInfo column = classInfo.findColumn(field);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown field " + field + " of table " + classInfo.tableName);
+        }
+        String where = " WHERE " + classInfo.primaryKey.name + " = ?";
+        lengthSql = "SELECT length(" + column.name + ") FROM " + classInfo.tableName + where;
+        readSql = "SELECT substr(" + column.name + ", ?, ?) FROM " + classInfo.tableName + where;
+        assignSql = "UPDATE " + classInfo.tableName + " SET " + column.name + " = ifnull((SELECT data FROM " +
+                CHUNKS_TABLE + " WHERE write_id = ? AND seq = 0), X'')" + where;
+    }
+
+    /**
+     * @return size of value in bytes or -1 if value is NULL or there is no row with key
+     */
+    public long length(long key) throws SQLException {
+        DBCursor cursor = asql.rawQuery(lengthSql, new Object[]{key});
+        try {
+            if (!cursor.moveToNext() || cursor.isNull(0)) {
+                return -1;
+            }
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Opens stream that reads value chunk by chunk on demand (NULL value is read as empty).
+     * Chunks are read by separate queries, so concurrent write of the same row can be seen
+     * partially. Stream is not thread safe.
+     */
+    public InputStream openInputStream(long key) {
+        return new BlobInputStream(key);
+    }
+
+    /**
+     * Replaces value with contents of stream (stream is not closed). Stream is read outside of
+     * transaction (unless caller holds one) and readers never see partially written value,
+     * see {@link BlobColumn} for the cost. Stream is consumed even if there is no row with key.
+     * @return count of written bytes or -1 if there is no row with key
+     */
+    public long write(long key, InputStream in) throws IOException, SQLException {
+        long writeId = lastWriteId.incrementAndGet();
+        asql.getConnection().execSQL(CREATE_CHUNKS_SQL);
+        long written = 0;
+        try {
+            byte[] buffer = new byte[chunkSize];
+            long chunks = 0;
+            int read;
+            while ((read = readChunk(in, buffer)) > 0) {
+                execute(INSERT_CHUNK_SQL, writeId, chunks++, read == buffer.length ? buffer : Arrays.copyOf(buffer, read));
+                written += read;
+            }
+            for (long stride = 1; stride < chunks; stride *= 2) {
+                execute(MERGE_CHUNKS_SQL, writeId, stride, writeId, stride * 2);
+                execute(DELETE_MERGED_CHUNKS_SQL, writeId, stride * 2, stride);
+            }
+            if (execute(assignSql, writeId, key) == 0) {
+                return -1;
+            }
+        } finally {
+            execute(DELETE_CHUNKS_SQL, writeId);
+        }
+        if (classInfo.cache != null) {
+            classInfo.cache.remove(key);
+        }
+        asql.getInvalidationTracker().notifyTablesChanged(classInfo.tableName);
+        return written;
+    }
+
+    private int execute(String sql, Object... args) {
+        DBStatement statement = asql.acquireStatement(sql);
+        try {
+            BindArgs.bind(statement, args);
+            long start = asql.getProfiler().start();
+            int updated = statement.executeUpdateDelete();
+            asql.getProfiler().end(sql, start, updated);
+            return updated;
+        } finally {
+            asql.getStatementCache().release(sql, statement);
+        }
+    }
+
+    /**
+     * Fills buffer until it is full or stream ends
+     * @return count of read bytes
+     */
+    private static int readChunk(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read == -1) break;
+            total += read;
+        }
+        return total;
+    }
+
+    private class BlobInputStream extends InputStream {
+        private final long key;
+        private long offset = 0;
+        private byte[] chunk;
+        private int chunkPosition;
+        private boolean lastChunk = false;
+
+        BlobInputStream(long key) {
+            this.key = key;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureChunk()) return -1;
+            return chunk[chunkPosition++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!ensureChunk()) return -1;
+            int count = Math.min(length, chunk.length - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, buffer, offset, count);
+            chunkPosition += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return chunk == null ? 0 : chunk.length - chunkPosition;
+        }
+
+        /**
+         * @return false if there is nothing more to read
+         */
+        private boolean ensureChunk() throws IOException {
+            if (chunk != null && chunkPosition < chunk.length) return true;
+            if (lastChunk) return false;
+            chunk = readChunk();
+            chunkPosition = 0;
+            offset += chunk.length;
+            lastChunk = chunk.length < chunkSize;
+            return chunk.length > 0;
+        }
+
+        private byte[] readChunk() throws IOException {
+            DBCursor cursor;
+            try {
+                //substr() offsets are 1-based
+                cursor = asql.rawQuery(readSql, new Object[]{offset + 1, (long) chunkSize, key});
+            } catch (SQLException e) {
+                throw new IOException("Can not read blob of " + classInfo.tableName + " row " + key, e);
+            }
+            long start = asql.getProfiler().start();
+            try {
+                if (!cursor.moveToNext()) {
+                    throw new IOException("No row " + key + " in " + classInfo.tableName);
+                }
+                byte[] result = cursor.isNull(0) ? new byte[0] : cursor.getBlob(0);
+                asql.getProfiler().end(readSql, start, 1);
+                return result;
+            } finally {
+                cursor.close();
+            }
+        }
+    }
+}
@@ -1,99 +1,334 @@
 package com.phlox.asql;
 
-import android.database.sqlite.SQLiteStatement;
-import android.text.TextUtils;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Created by fedex on 16.01.17.
  */
 
 public class ClassInfo {
+    public static final int MAX_CACHED_TEMPLATES = 64;
+
     public Map<String, ColumnInfo> fields = new TreeMap<>();
     public String tableName = "";
     public ColumnInfo primaryKey;
-    
-    private SQLiteStatement saveStatement;
-    private SQLiteStatement insertStatement;
-
-    public SQLiteStatement fillSavePreparedStatement(ASQL asql, Object entity) {
-        if (saveStatement == null) {
-            Collection<ColumnInfo> fieldValues = fields.values();
-            String columnsCommaSeparated = TextUtils.join(",", fieldValues);
-            StringBuffer sb = new StringBuffer(fieldValues.size()*2);
-            for (int i = 0; i < fieldValues.size(); i++) {
+    /**
+     * Compile-time generated mapper or null if model should be processed by reflection
+     */
+    public Mapper mapper;
+    /**
+     * All columns in the same order as in {@link #fields}
+     */
+    public ColumnInfo[] columns;
+    /**
+     * Columns used to insert rows with autoincrement/autogenerate keys (all except primary key)
+     */
+    public ColumnInfo[] insertColumns;
+    /**
+     * Index of primary key in {@link #columns} or -1
+     */
+    public int primaryKeyIndex = -1;
+    /**
+     * See {@link com.phlox.asql.annotations.DBTable#projection()}
+     */
+    public boolean projection = false;
+    /**
+     * See {@link com.phlox.asql.annotations.DBTable#withoutRowId()}
+     */
+    public boolean withoutRowId = false;
+    /**
+     * Indexes of generated schema
+     */
+    public List<IndexInfo> indexes = new ArrayList<>();
+    /**
+     * Entity cache of model or null if caching is disabled
+     */
+    public EntityCache cache;
+    /**
+     * Snapshots of loaded/saved objects or null if change tracking is disabled
+     */
+    EntitySnapshots snapshots;
+
+    private String saveQuery;
+    private String insertQuery;
+    private final ConcurrentMap<Integer, String> deleteQueries = new ConcurrentHashMap<>();
+    private String selectQuery;
+    private String selectByKeyQuery;
+    private String countQuery;
+    private String existsQuery;
+    private final ConcurrentMap<BitSet, String> updateQueries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> projectionQueries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SQLTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * "REPLACE INTO table (all columns) VALUES (...)" query, bind values with {@link #bindSaveValues(Object, DBStatement)}
+     */
+    public String getSaveSql() {
+        return saveQuery;
+    }
+
+    public void bindSaveValues(Object entity, DBStatement statement) {
+        statement.clearBindings();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].accessor.bind(entity, statement, i + 1);
+        }
+    }
+
+    /**
+     * "INSERT INTO table (all columns except primary key) VALUES (...)" query used to insert rows with
+     * autoincrement/autogenerate keys, bind values with {@link #bindInsertValues(Object, DBStatement)}
+     */
+    public String getInsertSql() {
+        return insertQuery;
+    }
+
+    public void bindInsertValues(Object entity, DBStatement statement) {
+        statement.clearBindings();
+        for (int i = 0; i < insertColumns.length; i++) {
+            insertColumns[i].accessor.bind(entity, statement, i + 1);
+        }
+    }
+
+    /**
+     * @return "DELETE ... WHERE key IN (...)" query with keysCount parameters
+     */
+    public String getDeleteSql(int keysCount) {
+        String query = deleteQueries.get(keysCount);
+        if (query == null) {
+            StringBuffer sb = new StringBuffer(keysCount * 2);
+            for (int i = 0; i < keysCount; i++) {
                 sb.append('?');
-                if (i != fieldValues.size() - 1) {
+                if (i != keysCount - 1) {
                     sb.append(',');
                 }
             }
-            String valuesPlaceholdersCommaSeparated = sb.toString();
-            
-            String query = String.format("REPLACE INTO %s (%s) VALUES (%s)",
-                    tableName, columnsCommaSeparated, valuesPlaceholdersCommaSeparated);
-            saveStatement = asql.getDB().compileStatement(query);
+            query = String.format("DELETE FROM %s WHERE %s IN (%s)", tableName,
+                    primaryKey.name, sb.toString());
+            deleteQueries.put(keysCount, query);
         }
-        int i = 1;
-        saveStatement.clearBindings();
-        for (Map.Entry<String, ColumnInfo> e: fields.entrySet()) {
-            ModelsInfoProcessor.bindFieldValueToPreparedStatement(e.getValue().field, entity, i, saveStatement);
-            i++;
+        return query;
+    }
+
+    /**
+     * @return "SELECT * FROM table" query, projections select only mapped columns
+     */
+    public String getSelectSql() {
+        return selectQuery;
+    }
+
+    /**
+     * @param fieldNames names of fields or columns to select, primary key is always selected
+     * @return "SELECT key, column1, ... FROM table" query
+     */
+    public String getSelectSql(String[] fieldNames) {
+        String cacheKey = StringUtils.join(",", fieldNames);
+        String query = projectionQueries.get(cacheKey);
+        if (query == null) {
+            List<ColumnInfo> selected = new ArrayList<>(fieldNames.length + 1);
+            if (primaryKey != null) {
+                selected.add(primaryKey);
+            }
+            for (String fieldName : fieldNames) {
+                ColumnInfo column = findColumn(fieldName);
+                if (column == null) {
+                    throw new IllegalArgumentException("Unknown field " + fieldName + " of table " + tableName);
+                }
+                if (!selected.contains(column)) {
+                    selected.add(column);
+                }
+            }
+            query = "SELECT " + StringUtils.join(",", selected) + " FROM " + tableName;
+            projectionQueries.put(cacheKey, query);
         }
-        return saveStatement;
+        return query;
     }
 
-    public SQLiteStatement fillInsertAutoincrementPreparedStatement(ASQL asql, Object entity) {
-        List<ColumnInfo> fieldValues = new ArrayList<>(fields.values());
-        //insert used there only for insert rows with autoincrement/autogenerate keys, so
-        //we should remove that column from insert clause
-        for (int i = 0; i < fieldValues.size(); i++) {
-            if (fieldValues.get(i) == primaryKey) {
-                fieldValues.remove(i);
-                break;
+    /**
+     * @return column by its name or name of its field (case insensitive, as SQLite names), or null
+     */
+    public ColumnInfo findColumn(String name) {
+        ColumnInfo column = fields.get(name);
+        if (column != null) return column;
+        column = fields.get(name.toLowerCase(Locale.US));
+        if (column != null) return column;
+        for (ColumnInfo c : columns) {
+            if (c.field.getName().equalsIgnoreCase(name) || c.name.equalsIgnoreCase(name)) {
+                return c;
             }
         }
-        if (insertStatement == null) {
-            String columnsCommaSeparated = TextUtils.join(",", fieldValues);
-            StringBuffer sb = new StringBuffer(fieldValues.size() *2);
-            for (int i = 0; i < fieldValues.size(); i++) {
-                sb.append('?');
-                if (i != fieldValues.size() - 1) {
+        return null;
+    }
+
+    /**
+     * @return "SELECT * FROM table WHERE key = ?" query (only mapped columns for projections)
+     */
+    public String getSelectByKeySql() {
+        return selectByKeyQuery;
+    }
+
+    public String getCountSql() {
+        return countQuery;
+    }
+
+    /**
+     * @return "SELECT count(*) FROM table WHERE key = ?" query
+     */
+    public String getExistsSql() {
+        return existsQuery;
+    }
+
+    /**
+     * @param changedColumns indexes of columns (in {@link #columns}) to update
+     * @return "UPDATE table SET column = ?, ... WHERE key = ?" query, columns are bound in order of indexes
+     * and primary key last
+     */
+    public String getUpdateSql(BitSet changedColumns) {
+        String query = updateQueries.get(changedColumns);
+        if (query == null) {
+            StringBuilder sb = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+            boolean first = true;
+            for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+                if (!first) {
                     sb.append(',');
                 }
+                sb.append(columns[i].name).append(" = ?");
+                first = false;
+            }
+            sb.append(" WHERE ").append(primaryKey.name).append(" = ?");
+            query = sb.toString();
+            updateQueries.put((BitSet) changedColumns.clone(), query);
+        }
+        return query;
+    }
+
+    public void bindUpdateValues(Object entity, BitSet changedColumns, DBStatement statement) {
+        statement.clearBindings();
+        int index = 1;
+        for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+            columns[i].accessor.bind(entity, statement, index++);
+        }
+        primaryKey.accessor.bind(entity, statement, index);
+    }
+
+    /**
+     * @return cached template for SQL with ":fieldName" placeholders of this model, cache is
+     * dropped when it reaches {@link #MAX_CACHED_TEMPLATES} so dynamically built SQL does not leak
+     */
+    public SQLTemplate getSQLTemplate(String namedParametersSql) {
+        SQLTemplate template = templates.get(namedParametersSql);
+        if (template == null) {
+            template = new SQLTemplate(namedParametersSql, this);
+            if (templates.size() >= MAX_CACHED_TEMPLATES) {
+                templates.clear();
+            }
+            SQLTemplate existing = templates.putIfAbsent(namedParametersSql, template);
+            if (existing != null) {
+                template = existing;
             }
-            String valuesPlaceholdersCommaSeparated = sb.toString();
+        }
+        return template;
+    }
+
+    /**
+     * Resolves model column for every column of cursor once per query, so rows can be read
+     * without name lookups. Cursor columns without matching model field are mapped to null.
+     */
+    public ColumnInfo[] mapCursorColumns(DBCursor cursor) {
+        String[] names = cursor.getColumnNames();
+        ColumnInfo[] result = new ColumnInfo[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = fields.get(names[i].toLowerCase());
+        }
+        return result;
+    }
+
+    public void bindColumnValue(ColumnInfo column, Object entity, int index, DBStatement statement) {
+        column.accessor.bind(entity, statement, index);
+    }
+
+    /**
+     * @return true if model has long, int or short primary key
+     */
+    public boolean hasIntegerPrimaryKey() {
+        if (primaryKey == null) return false;
+        Class keyType = primaryKey.field.getType();
+        return keyType.equals(long.class) || keyType.equals(int.class) || keyType.equals(short.class);
+    }
+
+    public long getPrimaryKeyValue(Object entity) throws IllegalAccessException {
+        if (mapper != null) {
+            return mapper.getPrimaryKey(entity);
+        }
+        Field keyField = primaryKey.field;
+        if (!keyField.isAccessible()) {
+            keyField.setAccessible(true);
+        }
+        return keyField.getLong(entity);
+    }
 
-            String query = String.format("INSERT INTO %s (%s) VALUES (%s)",
-                    tableName, columnsCommaSeparated, valuesPlaceholdersCommaSeparated);
-            insertStatement = asql.getDB().compileStatement(query);
+    public void setPrimaryKeyValue(Object entity, long value) throws IllegalAccessException {
+        if (mapper != null) {
+            mapper.setPrimaryKey(entity, value);
+            return;
         }
-        int i = 1;
-        insertStatement.clearBindings();
-        for (ColumnInfo ci: fieldValues) {
-            ModelsInfoProcessor.bindFieldValueToPreparedStatement(ci.field, entity, i, insertStatement);
-            i++;
+        Field keyField = primaryKey.field;
+        if (!keyField.isAccessible()) {
+            keyField.setAccessible(true);
         }
-        return insertStatement;
+        if (keyField.getType().equals(long.class))
+            keyField.setLong(entity, value);
+        else if (keyField.getType().equals(int.class))
+            keyField.setInt(entity, (int) value);
+        else if (keyField.getType().equals(short.class))
+            keyField.setShort(entity, (short) value);
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        if (saveStatement != null) {
-            saveStatement.close();
-            saveStatement = null;
+    /**
+     * Called once after all fields were parsed and before ClassInfo is published to other threads
+     */
+    void prepare() {
+        columns = fields.values().toArray(new ColumnInfo[fields.size()]);
+        selectQuery = "SELECT " + (projection ? StringUtils.join(",", columns) : "*") + " FROM " + tableName;
+        countQuery = "SELECT count(*) FROM " + tableName;
+        if (primaryKey != null) {
+            selectByKeyQuery = selectQuery + " WHERE " + primaryKey.name + " = ?";
+            existsQuery = countQuery + " WHERE " + primaryKey.name + " = ?";
         }
-        if (insertStatement != null) {
-            insertStatement.close();
-            insertStatement = null;
+        primaryKeyIndex = Arrays.asList(columns).indexOf(primaryKey);
+        //insert used only for insert rows with autoincrement/autogenerate keys, so
+        //we should remove that column from insert clause
+        List<ColumnInfo> withoutKey = new ArrayList<>(fields.values());
+        withoutKey.remove(primaryKey);
+        insertColumns = withoutKey.toArray(new ColumnInfo[withoutKey.size()]);
+        saveQuery = buildInsertSql("REPLACE", columns);
+        insertQuery = buildInsertSql("INSERT", insertColumns);
+    }
+
+    private String buildInsertSql(String verb, ColumnInfo[] columns) {
+        String columnsCommaSeparated = StringUtils.join(",", columns);
+        StringBuffer sb = new StringBuffer(columns.length * 2);
+        for (int i = 0; i < columns.length; i++) {
+            sb.append('?');
+            if (i != columns.length - 1) {
+                sb.append(',');
+            }
         }
-        super.finalize();
+        String valuesPlaceholdersCommaSeparated = sb.toString();
+        return String.format("%s INTO %s (%s) VALUES (%s)",
+                verb, tableName, columnsCommaSeparated, valuesPlaceholdersCommaSeparated);
     }
 }
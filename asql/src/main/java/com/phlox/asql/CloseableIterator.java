@@ -0,0 +1,12 @@
+package com.phlox.asql;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterator over DB query results, holds opened cursor until all rows are read or it is closed.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Iterable<T>, Closeable {
+    @Override
+    void close();
+}
@@ -0,0 +1,490 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and binds value of one model column. Specialized implementation is chosen once
+ * from the field type when {@link ColumnInfo} is created, so hot loops do not need to
+ * inspect field types for every cell.
+ */
+public abstract class ColumnAccessor {
+
+    public abstract void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException;
+
+    public abstract void bind(Object entity, DBStatement statement, int index);
+
+    /**
+     * @return boxed field value comparable by equals() (copy for mutable BLOB values),
+     * used to detect changed columns
+     */
+    public abstract Object get(Object entity) throws IllegalAccessException;
+
+    /**
+     * Resets field to java default value, used when NULL is read into reused object
+     */
+    public abstract void clear(Object entity) throws IllegalAccessException;
+
+    public static ColumnAccessor forField(Field field) {
+        if (!field.isAccessible()) {
+            field.setAccessible(true);
+        }
+        Class type = field.getType();
+        if (type.equals(String.class))
+            return new StringAccessor(field);
+        else if (type.equals(int.class))
+            return new IntAccessor(field);
+        else if (type.equals(short.class))
+            return new ShortAccessor(field);
+        else if (type.equals(byte.class))
+            return new ByteAccessor(field);
+        else if (type.equals(char.class))
+            return new CharAccessor(field);
+        else if (type.equals(long.class))
+            return new LongAccessor(field);
+        else if (type.equals(float.class))
+            return new FloatAccessor(field);
+        else if (type.equals(double.class))
+            return new DoubleAccessor(field);
+        else if (type.equals(boolean.class))
+            return new BooleanAccessor(field);
+        else if (type.equals(byte[].class))
+            return new BlobAccessor(field);
+        else if (type.equals(ByteBuffer.class))
+            return new ByteBufferAccessor(field);
+        return new UnsupportedTypeAccessor(field);
+    }
+
+    /**
+     * @return true if field of this type is read and bound without {@link TypeConverter}
+     */
+    public static boolean isNativeType(Class type) {
+        return type.isPrimitive() && type != void.class || type.equals(String.class) ||
+                type.equals(byte[].class) || type.equals(ByteBuffer.class);
+    }
+
+    public static ColumnAccessor forConverter(Field field, TypeConverter converter) {
+        if (!field.isAccessible()) {
+            field.setAccessible(true);
+        }
+        return new ConverterAccessor(field, converter);
+    }
+
+    /**
+     * Binds remaining bytes of buffer (position of buffer is not changed) or NULL
+     */
+    public static void bindBlob(DBStatement statement, int index, ByteBuffer value) {
+        if (value == null) {
+            statement.bindNull(index);
+            return;
+        }
+        ByteBuffer duplicate = value.duplicate();
+        byte[] bytes = new byte[duplicate.remaining()];
+        duplicate.get(bytes);
+        statement.bindBlob(index, bytes);
+    }
+
+    public static void bindBlob(DBStatement statement, int index, byte[] value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindBlob(index, value);
+        }
+    }
+
+    public static ByteBuffer wrapBlob(byte[] value) {
+        return value == null ? null : ByteBuffer.wrap(value);
+    }
+
+    /**
+     * @return copy of array contents that is compared by content, or null
+     */
+    public static Object blobSnapshot(byte[] value) {
+        return value == null ? null : ByteBuffer.wrap(value.clone());
+    }
+
+    /**
+     * @return copy of remaining bytes of buffer that is compared by content, or null
+     */
+    public static Object blobSnapshot(ByteBuffer value) {
+        if (value == null) return null;
+        ByteBuffer copy = ByteBuffer.allocate(value.remaining());
+        copy.put(value.duplicate());
+        copy.flip();
+        return copy;
+    }
+
+    public static ColumnAccessor forMapper(Mapper mapper, int column) {
+        return new MapperAccessor(mapper, column);
+    }
+
+    private static abstract class FieldAccessor extends ColumnAccessor {
+        final Field field;
+
+        FieldAccessor(Field field) {
+            this.field = field;
+        }
+
+        @Override
+        public void bind(Object entity, DBStatement statement, int index) {
+            try {
+                bindValue(entity, statement, index);
+            } catch (IllegalAccessException e) {
+                statement.bindNull(index);
+            }
+        }
+
+        abstract void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException;
+
+        @Override
+        public Object get(Object entity) throws IllegalAccessException {
+            return field.get(entity);
+        }
+    }
+
+    private static class StringAccessor extends FieldAccessor {
+        StringAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.set(entity, cursor.getString(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            Object val = field.get(entity);
+            if (val == null) {
+                statement.bindNull(index);
+            } else {
+                statement.bindString(index, (String) val);
+            }
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.set(entity, null);
+        }
+    }
+
+    private static class IntAccessor extends FieldAccessor {
+        IntAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setInt(entity, cursor.getInt(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindLong(index, field.getInt(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setInt(entity, 0);
+        }
+    }
+
+    private static class ShortAccessor extends FieldAccessor {
+        ShortAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setShort(entity, cursor.getShort(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindLong(index, field.getShort(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setShort(entity, (short) 0);
+        }
+    }
+
+    private static class ByteAccessor extends FieldAccessor {
+        ByteAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setByte(entity, (byte) cursor.getShort(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindLong(index, field.getByte(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setByte(entity, (byte) 0);
+        }
+    }
+
+    private static class CharAccessor extends FieldAccessor {
+        CharAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setChar(entity, (char) cursor.getInt(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindLong(index, field.getChar(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setChar(entity, (char) 0);
+        }
+    }
+
+    private static class LongAccessor extends FieldAccessor {
+        LongAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setLong(entity, cursor.getLong(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindLong(index, field.getLong(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setLong(entity, 0);
+        }
+    }
+
+    private static class FloatAccessor extends FieldAccessor {
+        FloatAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setFloat(entity, cursor.getFloat(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindDouble(index, field.getFloat(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setFloat(entity, 0);
+        }
+    }
+
+    private static class DoubleAccessor extends FieldAccessor {
+        DoubleAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setDouble(entity, cursor.getDouble(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindDouble(index, field.getDouble(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setDouble(entity, 0);
+        }
+    }
+
+    private static class BooleanAccessor extends FieldAccessor {
+        BooleanAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.setBoolean(entity, cursor.getInt(index) != 0);
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            statement.bindLong(index, field.getBoolean(entity) ? 1 : 0);
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.setBoolean(entity, false);
+        }
+    }
+
+    private static class BlobAccessor extends FieldAccessor {
+        BlobAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.set(entity, cursor.getBlob(index));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            bindBlob(statement, index, (byte[]) field.get(entity));
+        }
+
+        @Override
+        public Object get(Object entity) throws IllegalAccessException {
+            return blobSnapshot((byte[]) field.get(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.set(entity, null);
+        }
+    }
+
+    private static class ByteBufferAccessor extends FieldAccessor {
+        ByteBufferAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.set(entity, wrapBlob(cursor.getBlob(index)));
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            bindBlob(statement, index, (ByteBuffer) field.get(entity));
+        }
+
+        @Override
+        public Object get(Object entity) throws IllegalAccessException {
+            return blobSnapshot((ByteBuffer) field.get(entity));
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.set(entity, null);
+        }
+    }
+
+    /**
+     * Null field is bound as NULL and NULL column is read as null, converter gets only non-null values
+     */
+    private static class ConverterAccessor extends FieldAccessor {
+        final TypeConverter converter;
+
+        ConverterAccessor(Field field, TypeConverter converter) {
+            super(field);
+            this.converter = converter;
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) throws IllegalAccessException {
+            field.set(entity, converter.read(cursor, index));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void bindValue(Object entity, DBStatement statement, int index) throws IllegalAccessException {
+            Object val = field.get(entity);
+            if (val == null) {
+                statement.bindNull(index);
+            } else {
+                converter.bind(statement, index, val);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object get(Object entity) throws IllegalAccessException {
+            Object val = field.get(entity);
+            return val == null ? null : converter.snapshot(val);
+        }
+
+        @Override
+        public void clear(Object entity) throws IllegalAccessException {
+            field.set(entity, null);
+        }
+    }
+
+    /**
+     * Fields of not supported types are never read and always bound as NULL
+     */
+    private static class UnsupportedTypeAccessor extends FieldAccessor {
+        UnsupportedTypeAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) {
+        }
+
+        @Override
+        void bindValue(Object entity, DBStatement statement, int index) {
+            statement.bindNull(index);
+        }
+
+        @Override
+        public Object get(Object entity) {
+            return null;
+        }
+
+        @Override
+        public void clear(Object entity) {
+        }
+    }
+
+    private static class MapperAccessor extends ColumnAccessor {
+        final Mapper mapper;
+        final int column;
+
+        MapperAccessor(Mapper mapper, int column) {
+            this.mapper = mapper;
+            this.column = column;
+        }
+
+        @Override
+        public void read(Object entity, DBCursor cursor, int index) {
+            mapper.readColumn(entity, column, cursor, index);
+        }
+
+        @Override
+        public void bind(Object entity, DBStatement statement, int index) {
+            mapper.bindColumn(entity, column, statement, index);
+        }
+
+        @Override
+        public Object get(Object entity) {
+            return mapper.getColumn(entity, column);
+        }
+
+        @Override
+        public void clear(Object entity) {
+            mapper.clearColumn(entity, column);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of columns read into primitive buffers, for loading values of few columns of many rows
+ * (charts, statistics) without instantiating model object per row:
+ * <pre>
+ * LongArray times = new LongArray();
+ * DoubleArray ratings = new DoubleArray();
+ * ColumnBuffers columns = new ColumnBuffers().add("modificationTime", times).add("rating", ratings);
+ * int rows = asql.query(Note.class).where("modificationTime", "&gt;")
+ *         .orderBy("modificationTime", false).args(since).readColumns(columns);
+ * </pre>
+ * Buffers are cleared before every read, so the same instance can be read again without new
+ * allocations. Values are converted by SQLite rules, NULL is read as 0.
+ * Not thread safe, buffers should not be accessed while async read is in progress.
+ */
+public class ColumnBuffers {
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int INT = 2;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Object> buffers = new ArrayList<>();
+    private int[] kinds = new int[0];
+
+    /**
+     * @param column column name in result of raw query, or field or column name for model queries
+     */
+    public ColumnBuffers add(String column, LongArray buffer) {
+        return add(column, buffer, LONG);
+    }
+
+    public ColumnBuffers add(String column, DoubleArray buffer) {
+        return add(column, buffer, DOUBLE);
+    }
+
+    public ColumnBuffers add(String column, IntArray buffer) {
+        return add(column, buffer, INT);
+    }
+
+    private ColumnBuffers add(String column, Object buffer, int kind) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Buffer of column " + column + " is null");
+        }
+        names.add(column);
+        buffers.add(buffer);
+        kinds = Arrays.copyOf(kinds, kinds.length + 1);
+        kinds[kinds.length - 1] = kind;
+        return this;
+    }
+
+    List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Reads all rows of cursor into buffers
+     * @param positional true if cursor columns are in order they were added (queries built by
+     *                   {@link Query#readColumns(ColumnBuffers)}), otherwise they are found by name
+     * @return count of read rows
+     */
+    int read(DBCursor cursor, boolean positional) {
+        if (names.isEmpty()) {
+            throw new IllegalStateException("No columns to read");
+        }
+        int columnsCount = names.size();
+        int[] indexes = new int[columnsCount];
+        for (int i = 0; i < columnsCount; i++) {
+            indexes[i] = positional ? i : cursor.getColumnIndex(names.get(i));
+            if (indexes[i] == -1) {
+                throw new IllegalArgumentException("Column " + names.get(i) + " not found in query result");
+            }
+        }
+        //local typed references, so row loop does not cast or look up lists
+        LongArray[] longs = new LongArray[columnsCount];
+        DoubleArray[] doubles = new DoubleArray[columnsCount];
+        IntArray[] ints = new IntArray[columnsCount];
+        int expectedRows = cursor.getCount();
+        for (int i = 0; i < columnsCount; i++) {
+            Object buffer = buffers.get(i);
+            switch (kinds[i]) {
+                case LONG: longs[i] = (LongArray) buffer; longs[i].clear(); longs[i].ensureCapacity(expectedRows); break;
+                case DOUBLE: doubles[i] = (DoubleArray) buffer; doubles[i].clear(); doubles[i].ensureCapacity(expectedRows); break;
+                default: ints[i] = (IntArray) buffer; ints[i].clear(); ints[i].ensureCapacity(expectedRows); break;
+            }
+        }
+        int rows = 0;
+        while (cursor.moveToNext()) {
+            for (int i = 0; i < columnsCount; i++) {
+                switch (kinds[i]) {
+                    case LONG: longs[i].add(cursor.getLong(indexes[i])); break;
+                    case DOUBLE: doubles[i].add(cursor.getDouble(indexes[i])); break;
+                    default: ints[i].add(cursor.getInt(indexes[i])); break;
+                }
+            }
+            rows++;
+        }
+        return rows;
+    }
+}
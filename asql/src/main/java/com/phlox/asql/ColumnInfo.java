@@ -1,6 +1,7 @@
 package com.phlox.asql;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 
 /**
  * Created by PDT on 22.01.2017.
@@ -10,9 +11,52 @@ public class ColumnInfo {
     public String name;
     public Field field;
     public boolean primaryKey = false;
+    /**
+     * Index of this column in {@link Mapper#getColumnNames()} of generated mapper or -1
+     */
+    public int mapperIndex = -1;
+    /**
+     * Reader/binder specialized for the field type (or generated mapper column)
+     */
+    public ColumnAccessor accessor;
+    /**
+     * Converter of field type without native column mapping or null, see {@link TypeConverters}
+     */
+    public TypeConverter converter;
+    /**
+     * See {@link com.phlox.asql.annotations.DBColumn#autoIncrement()}
+     */
+    public boolean autoIncrement = false;
 
     public ColumnInfo(Field field) {
+        this(field, null);
+    }
+
+    public ColumnInfo(Field field, TypeConverter converter) {
         this.field = field;
+        this.converter = converter;
+        this.accessor = converter != null ? ColumnAccessor.forConverter(field, converter) : ColumnAccessor.forField(field);
+    }
+
+    /**
+     * @return declared type of column in generated schema or empty string for types without affinity
+     */
+    public String getSqlType() {
+        if (converter != null) {
+            return converter.getSqlType();
+        }
+        Class type = field.getType();
+        if (type.equals(String.class)) {
+            return "TEXT";
+        } else if (type.equals(long.class) || type.equals(int.class) || type.equals(short.class) ||
+                type.equals(byte.class) || type.equals(char.class) || type.equals(boolean.class)) {
+            return "INTEGER";
+        } else if (type.equals(double.class) || type.equals(float.class)) {
+            return "REAL";
+        } else if (type.equals(byte[].class) || type.equals(ByteBuffer.class)) {
+            return "BLOB";
+        }
+        return "";
     }
 
     @Override
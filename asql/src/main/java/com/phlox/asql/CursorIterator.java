@@ -0,0 +1,82 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBCursor;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Hydrates model objects from cursor row by row as caller advances.
+ * Closes cursor automatically after last row.
+ */
+class CursorIterator<T> implements CloseableIterator<T> {
+    private final Class<T> type;
+    private final DBCursor cursor;
+    private final ClassInfo classInfo;
+    private final ColumnInfo[] columns;
+    private final ModelsInfoProcessor models;
+    private T reusedInstance;
+    private final boolean reuseInstance;
+    private boolean moved = false;
+    private boolean hasNextRow = false;
+
+    CursorIterator(ModelsInfoProcessor models, Class<T> type, DBCursor cursor, boolean reuseInstance) {
+        this.models = models;
+        this.type = type;
+        this.cursor = cursor;
+        this.reuseInstance = reuseInstance;
+        classInfo = models.getClassInfo(type);
+        columns = classInfo.mapCursorColumns(cursor);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!moved) {
+            hasNextRow = !cursor.isClosed() && cursor.moveToNext();
+            moved = true;
+            if (!hasNextRow) {
+                close();
+            }
+        }
+        return hasNextRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        moved = false;
+        try {
+            if (reuseInstance) {
+                if (reusedInstance == null) {
+                    reusedInstance = (T) models.instantiateObjectFromCursor(type, cursor, classInfo, columns);
+                } else {
+                    models.fillObjectFromCursor(reusedInstance, cursor, classInfo, columns);
+                }
+                return reusedInstance;
+            }
+            return (T) models.instantiateObjectFromCursor(type, cursor, classInfo, columns);
+        } catch (InstantiationException | IllegalAccessException e) {
+            close();
+            throw new IllegalStateException("Can not instantiate " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (!cursor.isClosed()) {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.phlox.asql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Result of async DB operation.
+ * Result can be delivered to callback on any executor (main thread by default) or directly on DB thread,
+ * dependent operations can be chained with {@link #then(Continuation)} to run on DB (write) thread
+ * right after this one without hops to main thread ({@link #thenRead(Continuation)} for read-only ones).
+ * Callbacks and continuations added after operation completed are dispatched through DB executor
+ * too, so they never run on the thread that adds them.
+ * After {@link #cancel(boolean)} queued operation will not start and callbacks will not be called
+ * even if operation already finished, so it is safe to cancel from Activity/Fragment onDestroy.
+ */
+public class DBFuture<T> implements Future<T> {
+    private final ASQL asql;
+    private final FutureTask<T> task;
+    private final List<Runnable> completionListeners = new ArrayList<>();
+    private boolean completed = false;
+    /**
+     * Executor operation was started on, completion listeners added after completion run there
+     */
+    private volatile Executor executor;
+    private volatile boolean cancelRequested = false;
+
+    public interface Continuation<T, R> {
+        R run(ASQL asql, T previousResult) throws Exception;
+    }
+
+    DBFuture(ASQL asql, final DBOperation<T> operation) {
+        this.asql = asql;
+        final ASQL _asql = asql;
+        task = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return operation.run(_asql);
+            }
+        }) {
+            @Override
+            protected void done() {
+                onCompleted();
+            }
+        };
+    }
+
+    void start(Executor executor) {
+        this.executor = executor;
+        executor.execute(task);
+    }
+
+    /**
+     * Delivers result to callback on main thread
+     */
+    public DBFuture<T> onDone(ASQL.ResultCallback<T> callback) {
+        return onDone(asql.getMainThreadExecutor(), callback);
+    }
+
+    /**
+     * @param deliveryExecutor executor to call callback on, or null to call it directly on DB thread
+     */
+    public DBFuture<T> onDone(final Executor deliveryExecutor, final ASQL.ResultCallback<T> callback) {
+        if (callback == null) return this;
+        addCompletionListener(new Runnable() {
+            @Override
+            public void run() {
+                if (cancelRequested) return;
+                T result = null;
+                Exception exception = null;
+                try {
+                    result = getResult();
+                } catch (Exception e) {
+                    exception = e;
+                }
+                final T _result = result;
+                final Exception _exception = exception;
+                Runnable delivery = new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!cancelRequested) {
+                            callback.onDone(_result, _exception);
+                        }
+                    }
+                };
+                if (deliveryExecutor == null) {
+                    delivery.run();
+                } else {
+                    deliveryExecutor.execute(delivery);
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Runs continuation on DB (write) executor right after this operation completed successfully,
+     * so it is serialized with other writes even if this operation was started by
+     * {@link ASQL#submitRead(DBOperation)}.
+     * If this operation fails returned future fails with the same exception, if it is cancelled
+     * returned future is cancelled too.
+     */
+    public <R> DBFuture<R> then(Continuation<T, R> continuation) {
+        return then(asql.getWriteExecutor(), continuation);
+    }
+
+    /**
+     * Same as {@link #then(Continuation)} for read-only continuation, runs it on executor for reads
+     * (see {@link ASQL#enableWriteAheadLogging(int)})
+     */
+    public <R> DBFuture<R> thenRead(Continuation<T, R> continuation) {
+        return then(asql.getReadExecutor(), continuation);
+    }
+
+    private <R> DBFuture<R> then(final Executor target, final Continuation<T, R> continuation) {
+        final DBFuture<R> next = new DBFuture<>(asql, new DBOperation<R>() {
+            @Override
+            public R run(ASQL asql) throws Exception {
+                return continuation.run(asql, getResult());
+            }
+        });
+        addCompletionListener(new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled() || cancelRequested) {
+                    next.cancel(false);
+                } else if (target == executor) {
+                    //listener already runs on target executor (see addCompletionListener)
+                    next.executor = target;
+                    next.task.run();
+                } else {
+                    next.start(target);
+                }
+            }
+        });
+        return next;
+    }
+
+    /**
+     * @return result of operation, exceptions thrown by operation are rethrown as is
+     */
+    public T getResult() throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Listener is called on DB thread: by thread that completed operation or, if operation is
+     * already completed, through DB executor instead of caller (possibly main) thread
+     */
+    private void addCompletionListener(Runnable listener) {
+        synchronized (completionListeners) {
+            if (!completed) {
+                completionListeners.add(listener);
+                return;
+            }
+        }
+        Executor target = executor;
+        (target != null ? target : asql.getWriteExecutor()).execute(listener);
+    }
+
+    private void onCompleted() {
+        List<Runnable> listeners;
+        synchronized (completionListeners) {
+            completed = true;
+            listeners = new ArrayList<>(completionListeners);
+            completionListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        cancelRequested = true;
+        return task.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return task.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return task.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return task.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return task.get(timeout, unit);
+    }
+}
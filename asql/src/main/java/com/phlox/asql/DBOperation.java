@@ -0,0 +1,9 @@
+package com.phlox.asql;
+
+/**
+ * Database work submitted by {@link ASQL#submit(DBOperation)} or {@link ASQL#submitRead(DBOperation)},
+ * runs on DB executor thread.
+ */
+public interface DBOperation<T> {
+    T run(ASQL asql) throws Exception;
+}
@@ -0,0 +1,64 @@
+package com.phlox.asql;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive double values, filled by {@link ColumnBuffers} without boxing.
+ * Reused instance keeps its capacity after {@link #clear()}, so refilling it does not allocate.
+ */
+public class DoubleArray {
+    private static final int DEFAULT_CAPACITY = 16;
+    private double[] values;
+    private int size = 0;
+
+    public DoubleArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleArray(int initialCapacity) {
+        values = new double[Math.max(initialCapacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return values[index];
+    }
+
+    public void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * @return backing array without copying, only first {@link #size()} values are valid.
+     * Array is replaced when it grows, so it should be requested again after adding values.
+     */
+    public double[] getRawArray() {
+        return values;
+    }
+
+    /**
+     * @return copy of values
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
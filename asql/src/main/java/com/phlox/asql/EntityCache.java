@@ -0,0 +1,104 @@
+package com.phlox.asql;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of model objects by primary key (identity map) enabled by
+ * {@link com.phlox.asql.annotations.DBTable#cacheSize()}.
+ * Kept coherent by ASQL save, saveAll, delete and clear methods. Changes made by exec* methods
+ * or directly through database are not tracked, invalidate cache with
+ * {@link ASQL#invalidateCache(Class)} or {@link ASQL#invalidateCache(Class, long)} after them.
+ * Cached objects are shared between callers, so changed object should be saved or invalidated.
+ */
+public class EntityCache {
+    private final LinkedHashMap<Long, Object> entries;
+    private final int maxSize;
+    private final boolean soft;
+    private long hitCount = 0;
+    private long missCount = 0;
+    /**
+     * Incremented by every change made by writers, see {@link #putIfUnmodified(long, Object, long)}
+     */
+    private long modificationStamp = 0;
+
+    EntityCache(final int maxSize, boolean soft) {
+        this.maxSize = maxSize;
+        this.soft = soft;
+        entries = new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return cached entity or null
+     */
+    public synchronized Object get(long key) {
+        Object value = entries.get(key);
+        if (value instanceof SoftReference) {
+            value = ((SoftReference) value).get();
+            if (value == null) {
+                entries.remove(key);
+            }
+        }
+        if (value != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return value;
+    }
+
+    public synchronized void put(long key, Object entity) {
+        modificationStamp++;
+        entries.put(key, soft ? new SoftReference<>(entity) : entity);
+    }
+
+    public synchronized void remove(long key) {
+        modificationStamp++;
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        modificationStamp++;
+        entries.clear();
+    }
+
+    /**
+     * @return stamp to take before reading entity from database, see {@link #putIfUnmodified(long, Object, long)}
+     */
+    public synchronized long getModificationStamp() {
+        return modificationStamp;
+    }
+
+    /**
+     * Caches entity read from database only if cache was not changed by writers (put, remove, clear)
+     * since stamp was taken, otherwise entity may be already deleted or replaced and is not cached
+     * @return true if entity was cached
+     */
+    public synchronized boolean putIfUnmodified(long key, Object entity, long stamp) {
+        if (modificationStamp != stamp) return false;
+        entries.put(key, soft ? new SoftReference<>(entity) : entity);
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+}
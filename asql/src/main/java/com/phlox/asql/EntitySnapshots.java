@@ -0,0 +1,90 @@
+package com.phlox.asql;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column values of model objects as they were last loaded from or saved to database, used to
+ * update only changed columns (see {@link com.phlox.asql.annotations.DBTable#trackChanges()}).
+ * Objects are compared by identity and held by weak references.
+ */
+class EntitySnapshots {
+    private final ColumnInfo[] columns;
+    private final Map<EntityReference, Object[]> snapshots = new HashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private static class EntityReference extends WeakReference<Object> {
+        final int hash;
+
+        EntityReference(Object entity, ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            hash = System.identityHashCode(entity);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EntityReference)) return false;
+            Object entity = get();
+            return entity != null && entity == ((EntityReference) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    EntitySnapshots(ColumnInfo[] columns) {
+        this.columns = columns;
+    }
+
+    void take(Object entity) throws IllegalAccessException {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].accessor.get(entity);
+        }
+        synchronized (this) {
+            expungeStaleEntries();
+            snapshots.put(new EntityReference(entity, queue), values);
+        }
+    }
+
+    /**
+     * @return indexes (in {@link ClassInfo#columns}) of columns changed since snapshot was taken
+     * or null if there is no snapshot of entity
+     */
+    BitSet findChangedColumns(Object entity) throws IllegalAccessException {
+        Object[] values;
+        synchronized (this) {
+            values = snapshots.get(new EntityReference(entity, null));
+        }
+        if (values == null) return null;
+        BitSet changed = new BitSet(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            Object value = columns[i].accessor.get(entity);
+            if (value == null ? values[i] != null : !value.equals(values[i])) {
+                changed.set(i);
+            }
+        }
+        return changed;
+    }
+
+    synchronized void remove(Object entity) {
+        snapshots.remove(new EntityReference(entity, null));
+    }
+
+    synchronized void clear() {
+        snapshots.clear();
+    }
+
+    private void expungeStaleEntries() {
+        Object reference;
+        while ((reference = queue.poll()) != null) {
+            snapshots.remove(reference);
+        }
+    }
+}
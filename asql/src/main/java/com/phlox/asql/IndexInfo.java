@@ -0,0 +1,21 @@
+package com.phlox.asql;
+
+/**
+ * Index of model table declared by {@link com.phlox.asql.annotations.DBColumn#indexed()},
+ * {@link com.phlox.asql.annotations.DBColumn#unique()} or {@link com.phlox.asql.annotations.DBIndex}
+ */
+public class IndexInfo {
+    public final String name;
+    public final boolean unique;
+    public final ColumnInfo[] columns;
+
+    public IndexInfo(String name, boolean unique, ColumnInfo[] columns) {
+        this.name = name;
+        this.unique = unique;
+        this.columns = columns;
+    }
+
+    static String defaultName(String tableName, ColumnInfo[] columns) {
+        return tableName + "_" + StringUtils.join("_", columns) + "_idx";
+    }
+}
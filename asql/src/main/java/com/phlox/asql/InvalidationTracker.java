@@ -0,0 +1,227 @@
+package com.phlox.asql;
+
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks tables changed by ASQL write methods (save, saveAll, delete, clear, exec*) and notifies
+ * observers of these tables. Changes made inside transaction started through
+ * {@link ASQL#getConnection()} are collected until outermost level ends and reported once if it
+ * was committed (dropped on rollback). Reported changes are coalesced: first change opens window of
+ * {@link #setCoalesceWindowMs(long)} and all tables changed until window ends are dispatched once,
+ * later changes do not extend the window, so steady stream of writes still notifies once per window.
+ * Dispatch goes through DB (write) executor, so async writes queued before it are already committed.
+ * Changes made directly through {@link ASQL#getDB()} are not tracked (and transactions started there
+ * do not defer notifications), report them with {@link #notifyTablesChanged(String...)}.
+ */
+public class InvalidationTracker {
+    public static final long DEFAULT_COALESCE_WINDOW_MS = 50;
+    private static final int SQL_TABLES_CACHE_SIZE = 64;
+    private static final Pattern TABLE_NAME_PATTERN = Pattern.compile(
+            "\\b(?:FROM|JOIN|INTO|TABLE(?:\\s+IF(?:\\s+NOT)?\\s+EXISTS)?|UPDATE(?:\\s+OR\\s+\\w+)?)\\s+[`\"\\[]?([\\w.]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    public interface Observer {
+        /**
+         * Called on DB executor thread
+         * @param tables changed tables observed by this observer (in lower case)
+         */
+        void onInvalidated(Set<String> tables);
+    }
+
+    private final ASQL asql;
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final Map<Observer, Set<String>> observers = new LinkedHashMap<>();
+    private Set<String> pendingTables = new HashSet<>();
+    private boolean dispatchScheduled = false;
+    private volatile long coalesceWindowMs = DEFAULT_COALESCE_WINDOW_MS;
+    private final ThreadLocal<TransactionChanges> transactionChanges = new ThreadLocal<>();
+    private final Map<String, Set<String>> sqlTablesCache = new LinkedHashMap<String, Set<String>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+            return size() > SQL_TABLES_CACHE_SIZE;
+        }
+    };
+
+    InvalidationTracker(ASQL asql) {
+        this.asql = asql;
+    }
+
+    /**
+     * @param coalesceWindowMs time from first reported change to dispatch of all changes reported
+     *                         since then
+     */
+    public void setCoalesceWindowMs(long coalesceWindowMs) {
+        this.coalesceWindowMs = coalesceWindowMs;
+    }
+
+    /**
+     * @param tables table names to observe, case insensitive
+     */
+    public synchronized void addObserver(Observer observer, Collection<String> tables) {
+        Set<String> observedTables = new HashSet<>();
+        for (String table : tables) {
+            observedTables.add(table.toLowerCase());
+        }
+        observers.put(observer, observedTables);
+    }
+
+    public synchronized void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Reports changed tables, inside transaction of {@link ASQL#getConnection()} on this thread
+     * they are reported after commit
+     */
+    public void notifyTablesChanged(String... tables) {
+        TransactionChanges changes = transactionChanges.get();
+        if (changes != null) {
+            for (String table : tables) {
+                changes.tables.add(table.toLowerCase());
+            }
+            return;
+        }
+        synchronized (this) {
+            if (observers.isEmpty()) return;
+            for (String table : tables) {
+                pendingTables.add(table.toLowerCase());
+            }
+            if (dispatchScheduled) return;
+            dispatchScheduled = true;
+        }
+        mainThreadHandler.postDelayed(scheduleDispatchRunnable, coalesceWindowMs);
+    }
+
+    /**
+     * Notifies about tables referenced by executed sql
+     */
+    void notifySqlExecuted(String sql) {
+        Set<String> tables;
+        synchronized (this) {
+            if (observers.isEmpty()) return;
+            tables = sqlTablesCache.get(sql);
+            if (tables == null) {
+                tables = parseTableNames(sql);
+                sqlTablesCache.put(sql, tables);
+            }
+        }
+        if (!tables.isEmpty()) {
+            notifyTablesChanged(tables.toArray(new String[tables.size()]));
+        }
+    }
+
+    /**
+     * Finds names of tables referenced by sql (after FROM, JOIN, INTO, UPDATE and TABLE keywords).
+     * May return more tables than actually used, which only causes extra notifications.
+     * @return table names in lower case
+     */
+    static Set<String> parseTableNames(String sql) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = TABLE_NAME_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            int schemaSeparator = name.lastIndexOf('.');
+            if (schemaSeparator != -1) {
+                name = name.substring(schemaSeparator + 1);
+            }
+            if (!name.isEmpty()) {
+                tables.add(name.toLowerCase());
+            }
+        }
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * Changed tables of transaction on current thread, SQLiteDatabase transactions are bound to thread
+     */
+    private static class TransactionChanges {
+        int depth;
+        boolean rolledBack;
+        final Set<String> tables = new HashSet<>();
+    }
+
+    /**
+     * Passed to every transaction level, level is committed only when it and all of its nested
+     * levels were successful, so any rollback means that whole transaction is rolled back
+     */
+    final SQLiteTransactionListener transactionListener = new SQLiteTransactionListener() {
+        @Override
+        public void onBegin() {
+            TransactionChanges changes = transactionChanges.get();
+            if (changes == null) {
+                changes = new TransactionChanges();
+                transactionChanges.set(changes);
+            }
+            changes.depth++;
+        }
+
+        @Override
+        public void onCommit() {
+            onTransactionLevelEnd(false);
+        }
+
+        @Override
+        public void onRollback() {
+            onTransactionLevelEnd(true);
+        }
+    };
+
+    private void onTransactionLevelEnd(boolean rolledBack) {
+        TransactionChanges changes = transactionChanges.get();
+        if (changes == null) return;
+        changes.rolledBack |= rolledBack;
+        if (--changes.depth > 0) return;
+        transactionChanges.remove();
+        if (!changes.rolledBack && !changes.tables.isEmpty()) {
+            notifyTablesChanged(changes.tables.toArray(new String[changes.tables.size()]));
+        }
+    }
+
+    private final Runnable scheduleDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            asql.getWriteExecutor().execute(dispatchRunnable);
+        }
+    };
+
+    private final Runnable dispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Set<String> changedTables;
+            List<Map.Entry<Observer, Set<String>>> currentObservers;
+            synchronized (InvalidationTracker.this) {
+                changedTables = pendingTables;
+                pendingTables = new HashSet<>();
+                dispatchScheduled = false;
+                currentObservers = new ArrayList<>(observers.entrySet());
+            }
+            for (Map.Entry<Observer, Set<String>> e : currentObservers) {
+                Set<String> invalidated = null;
+                for (String table : e.getValue()) {
+                    if (changedTables.contains(table)) {
+                        if (invalidated == null) {
+                            invalidated = new HashSet<>();
+                        }
+                        invalidated.add(table);
+                    }
+                }
+                if (invalidated != null) {
+                    e.getKey().onInvalidated(invalidated);
+                }
+            }
+        }
+    };
+}
@@ -0,0 +1,200 @@
+package com.phlox.asql;
+
+import android.database.SQLException;
+
+import com.phlox.asql.driver.DBCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads model objects page by page with keyset seek
+ * ("WHERE key > last_key ORDER BY key LIMIT n") instead of LIMIT/OFFSET,
+ * so every page costs the same no matter how deep it is.
+ * When sort column is not unique primary key is used as tie-breaker.
+ * Sort column should be indexed and NOT NULL.
+ * Async loading prefetches next page on DB executor right after current page delivered.
+ */
+public class KeysetPager<T> {
+    private final ASQL asql;
+    private final Class<T> type;
+    private final ClassInfo classInfo;
+    private final int pageSize;
+    private final String firstPageQuery;
+    private final String nextPageQuery;
+    private final String sortColumn;
+    private final String tieBreakerColumn;
+    private final String[] selectionArgs;
+    private boolean prefetchEnabled = true;
+
+    /**
+     * Seek keys as read from cursor (Long, Double, String or byte[]), bound with the same types,
+     * so comparison does not depend on affinity of sort column
+     */
+    private Object lastKey;
+    private Object lastTieBreakerKey;
+    private boolean hasMore = true;
+    private List<T> prefetchedPage;
+
+    KeysetPager(ASQL asql, Class<T> type, String sortColumn, boolean descending, int pageSize,
+                String whereClause, String... selectionArgs) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize should be positive");
+        }
+        this.asql = asql;
+        this.type = type;
+        this.pageSize = pageSize;
+        this.selectionArgs = selectionArgs != null ? selectionArgs : new String[0];
+        classInfo = asql.getModels().getClassInfo(type);
+        if (sortColumn == null) {
+            if (classInfo.primaryKey == null) {
+                throw new IllegalArgumentException(type.getName() + " has no primary key, sort column should be specified");
+            }
+            sortColumn = classInfo.primaryKey.name;
+        }
+        this.sortColumn = sortColumn;
+        tieBreakerColumn = classInfo.primaryKey != null && !classInfo.primaryKey.name.equals(sortColumn) ?
+                classInfo.primaryKey.name : null;
+
+        String comparison = descending ? " < ?" : " > ?";
+        String order = descending ? " DESC" : "";
+        String orderBy = " ORDER BY " + sortColumn + order +
+                (tieBreakerColumn != null ? ", " + tieBreakerColumn + order : "") +
+                " LIMIT " + pageSize;
+        String seek = tieBreakerColumn == null ? sortColumn + comparison :
+                "(" + sortColumn + comparison + " OR (" + sortColumn + " = ? AND " + tieBreakerColumn + comparison + "))";
+        String select = classInfo.getSelectSql();
+        if (whereClause != null && !whereClause.isEmpty()) {
+            firstPageQuery = select + " WHERE (" + whereClause + ")" + orderBy;
+            nextPageQuery = select + " WHERE (" + whereClause + ") AND " + seek + orderBy;
+        } else {
+            firstPageQuery = select + orderBy;
+            nextPageQuery = select + " WHERE " + seek + orderBy;
+        }
+    }
+
+    /**
+     * Enables or disables loading of next page in background after page was delivered
+     * by {@link #loadNextPage(ASQL.ResultCallback)}. Enabled by default.
+     */
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.prefetchEnabled = prefetchEnabled;
+    }
+
+    public synchronized boolean hasMore() {
+        return hasMore || prefetchedPage != null;
+    }
+
+    /**
+     * Starts paging from the first page again
+     */
+    public synchronized void reset() {
+        lastKey = null;
+        lastTieBreakerKey = null;
+        hasMore = true;
+        prefetchedPage = null;
+    }
+
+    /**
+     * @return next page or empty list if there are no more rows
+     */
+    public synchronized List<T> loadNextPage() throws IllegalAccessException, InstantiationException {
+        if (prefetchedPage != null) {
+            List<T> page = prefetchedPage;
+            prefetchedPage = null;
+            return page;
+        }
+        return queryPage();
+    }
+
+    public DBFuture<List<T>> loadNextPage(ASQL.ResultCallback<List<T>> callback) {
+        DBFuture<List<T>> future = asql.submitRead(new DBOperation<List<T>>() {
+            @Override
+            public List<T> run(ASQL asql) throws Exception {
+                return loadNextPage();
+            }
+        }).onDone(callback);
+        future.thenRead(new DBFuture.Continuation<List<T>, Void>() {
+            @Override
+            public Void run(ASQL asql, List<T> previousResult) {
+                if (prefetchEnabled) {
+                    prefetch();
+                }
+                return null;
+            }
+        });
+        return future;
+    }
+
+    private synchronized void prefetch() {
+        if (prefetchedPage != null || !hasMore) return;
+        try {
+            prefetchedPage = queryPage();
+        } catch (Exception e) {
+            //page will be loaded (and error reported) again on next request
+            prefetchedPage = null;
+        }
+    }
+
+    private List<T> queryPage() throws IllegalAccessException, InstantiationException {
+        if (!hasMore) {
+            return new ArrayList<>();
+        }
+        String query;
+        Object[] args;
+        if (lastKey == null) {
+            query = firstPageQuery;
+            args = selectionArgs;
+        } else {
+            query = nextPageQuery;
+            int seekArgsCount = tieBreakerColumn == null ? 1 : 3;
+            args = new Object[selectionArgs.length + seekArgsCount];
+            System.arraycopy(selectionArgs, 0, args, 0, selectionArgs.length);
+            args[selectionArgs.length] = lastKey;
+            if (tieBreakerColumn != null) {
+                args[selectionArgs.length + 1] = lastKey;
+                args[selectionArgs.length + 2] = lastTieBreakerKey;
+            }
+        }
+        DBCursor cursor = asql.rawQuery(query, args);
+        long start = asql.getProfiler().start();
+        try {
+            List<T> page = new ArrayList<>(pageSize);
+            ModelsInfoProcessor models = asql.getModels();
+            ColumnInfo[] columns = classInfo.mapCursorColumns(cursor);
+            while (cursor.moveToNext()) {
+                page.add((T) models.instantiateObjectFromCursor(type, cursor, classInfo, columns));
+            }
+            if (cursor.moveToLast()) {
+                lastKey = getKeyValue(cursor, sortColumn);
+                if (tieBreakerColumn != null) {
+                    lastTieBreakerKey = getKeyValue(cursor, tieBreakerColumn);
+                }
+            }
+            hasMore = page.size() == pageSize;
+            asql.getProfiler().end(query, start, page.size());
+            return page;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static Object getKeyValue(DBCursor cursor, String column) {
+        int index = cursor.getColumnIndex(column);
+        if (index == -1) {
+            throw new SQLException("Key column " + column + " not found in result");
+        }
+        switch (cursor.getType(index)) {
+            case DBCursor.FIELD_TYPE_NULL:
+                throw new SQLException("Key column " + column + " contains NULL");
+            case DBCursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(index);
+            case DBCursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(index);
+            case DBCursor.FIELD_TYPE_BLOB:
+                return cursor.getBlob(index);
+            default:
+                return cursor.getString(index);
+        }
+    }
+}
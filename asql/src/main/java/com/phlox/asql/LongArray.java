@@ -0,0 +1,64 @@
+package com.phlox.asql;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive long values, filled by {@link ColumnBuffers} without boxing.
+ * Reused instance keeps its capacity after {@link #clear()}, so refilling it does not allocate.
+ */
+public class LongArray {
+    private static final int DEFAULT_CAPACITY = 16;
+    private long[] values;
+    private int size = 0;
+
+    public LongArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongArray(int initialCapacity) {
+        values = new long[Math.max(initialCapacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return values[index];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * @return backing array without copying, only first {@link #size()} values are valid.
+     * Array is replaced when it grows, so it should be requested again after adding values.
+     */
+    public long[] getRawArray() {
+        return values;
+    }
+
+    /**
+     * @return copy of values
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,42 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+/**
+ * Model mapper generated at compile time by asql-compiler for every {@link com.phlox.asql.annotations.DBTable}
+ * annotated class (named {@code <OuterClass_>ModelClass_ASQLMapper} and placed into the model's package).
+ * When present it is used instead of reflection to instantiate, read and bind model objects.
+ * Columns are addressed by index in {@link #getColumnNames()}.
+ */
+public interface Mapper<T> {
+    String GENERATED_CLASS_SUFFIX = "_ASQLMapper";
+
+    String[] getColumnNames();
+
+    T newInstance();
+
+    void readColumn(T entity, int column, DBCursor cursor, int cursorIndex);
+
+    void bindColumn(T entity, int column, DBStatement statement, int index);
+
+    /**
+     * Resets field of column to java default value (0, false, null)
+     */
+    void clearColumn(T entity, int column);
+
+    /**
+     * @return boxed value of column field (null for not supported field types), used for change tracking
+     */
+    Object getColumn(T entity, int column);
+
+    /**
+     * Only valid for models with integer (long, int, short) primary key
+     */
+    long getPrimaryKey(T entity);
+
+    /**
+     * Only valid for models with integer (long, int, short) primary key
+     */
+    void setPrimaryKey(T entity, long key);
+}
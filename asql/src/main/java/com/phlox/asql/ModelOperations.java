@@ -0,0 +1,398 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synchronous CRUD of models shared by {@link ASQL} and {@link ModelStore}: statements, entity cache
+ * and change tracking are handled here the same way for both. Subclasses provide connection and
+ * compiled statements, and may profile statements and observe changed tables.
+ */
+abstract class ModelOperations {
+    /**
+     * Default SQLITE_MAX_VARIABLE_NUMBER of SQLite builds prior to 3.32
+     */
+    static final int MAX_SQL_VARIABLES = 999;
+
+    final ModelsInfoProcessor models;
+
+    ModelOperations(ModelsInfoProcessor models) {
+        this.models = models;
+    }
+
+    abstract DBConnection connection();
+
+    /**
+     * Checks out compiled statement, it is returned by {@link #releaseStatement(String, DBStatement)} after use
+     */
+    abstract DBStatement acquireStatement(String sql);
+
+    abstract void releaseStatement(String sql, DBStatement statement);
+
+    DBCursor query(String sql, Object[] args) {
+        return connection().query(sql, args);
+    }
+
+    /**
+     * @return start time of statement or 0 if statements are not profiled
+     */
+    long profileStart() {
+        return 0;
+    }
+
+    void profileEnd(String sql, long start, int rows) {
+    }
+
+    /**
+     * Called after rows of table were changed by save or delete
+     */
+    void onTableChanged(String table) {
+    }
+
+    long count(Class type) {
+        String query = models.getClassInfo(type).getCountSql();
+        DBStatement statement = acquireStatement(query);
+        try {
+            long start = profileStart();
+            long count = statement.simpleQueryForLong();
+            profileEnd(query, start, 1);
+            return count;
+        } finally {
+            releaseStatement(query, statement);
+        }
+    }
+
+    /**
+     * Inserts or replaces row of entity. Already stored entities of models with change tracking
+     * (see {@link com.phlox.asql.annotations.DBTable#trackChanges()}) are updated by
+     * "UPDATE ... SET" of changed columns only.
+     * @return row id of entity
+     */
+    long save(Object entity) throws IllegalAccessException {
+        ClassInfo classInfo = models.getClassInfo(entity.getClass());
+        if (classInfo.projection) {
+            throw new IllegalArgumentException("Projection " + entity.getClass().getName() + " can not be saved");
+        }
+        if (classInfo.snapshots != null) {
+            long key = classInfo.getPrimaryKeyValue(entity);
+            if (key != 0 && updateChangedColumns(classInfo, entity)) {
+                return key;
+            }
+        }
+        Field keyField = classInfo.primaryKey != null ? classInfo.primaryKey.field : null;
+        //look like we attempt to save row with autoincrement key
+        boolean insert = keyField != null && (keyField.getType().equals(long.class) ||
+                keyField.getType().equals(int.class) || keyField.getType().equals(short.class)) &&
+                classInfo.getPrimaryKeyValue(entity) == 0;
+        String query = insert ? classInfo.getInsertSql() : classInfo.getSaveSql();
+        DBStatement statement = acquireStatement(query);
+        long result;
+        try {
+            if (insert) {
+                classInfo.bindInsertValues(entity, statement);
+            } else {
+                classInfo.bindSaveValues(entity, statement);
+            }
+            long start = profileStart();
+            result = statement.executeInsert();
+            profileEnd(query, start, result != -1 ? 1 : 0);
+        } finally {
+            releaseStatement(query, statement);
+        }
+        if (result != -1) {
+            if (insert) {
+                classInfo.setPrimaryKeyValue(entity, result);
+            }
+            onEntityStored(classInfo, entity);
+        }
+        onTableChanged(classInfo.tableName);
+        return result;
+    }
+
+    /**
+     * Updates only columns changed since entity was loaded or saved
+     * @return false if there is no snapshot of entity, its key was changed or its row does not exist
+     */
+    private boolean updateChangedColumns(ClassInfo classInfo, Object entity) throws IllegalAccessException {
+        BitSet changedColumns = classInfo.snapshots.findChangedColumns(entity);
+        if (changedColumns == null || changedColumns.get(classInfo.primaryKeyIndex)) {
+            return false;
+        }
+        if (changedColumns.isEmpty()) {
+            //nothing to write, just make sure row was not deleted bypassing tracking
+            String query = classInfo.getExistsSql();
+            DBStatement statement = acquireStatement(query);
+            try {
+                classInfo.primaryKey.accessor.bind(entity, statement, 1);
+                long start = profileStart();
+                boolean exists = statement.simpleQueryForLong() > 0;
+                profileEnd(query, start, 1);
+                return exists;
+            } finally {
+                releaseStatement(query, statement);
+            }
+        }
+        String query = classInfo.getUpdateSql(changedColumns);
+        DBStatement statement = acquireStatement(query);
+        int updated;
+        try {
+            classInfo.bindUpdateValues(entity, changedColumns, statement);
+            long start = profileStart();
+            updated = statement.executeUpdateDelete();
+            profileEnd(query, start, updated);
+        } finally {
+            releaseStatement(query, statement);
+        }
+        if (updated == 0) {
+            return false;
+        }
+        onEntityStored(classInfo, entity);
+        onTableChanged(classInfo.tableName);
+        return true;
+    }
+
+    private void onEntityStored(ClassInfo classInfo, Object entity) throws IllegalAccessException {
+        if (classInfo.cache != null) {
+            classInfo.cache.put(classInfo.getPrimaryKeyValue(entity), entity);
+        }
+        if (classInfo.snapshots != null) {
+            classInfo.snapshots.take(entity);
+        }
+    }
+
+    /**
+     * Saves entities same way as {@link #save(Object)} but inside transactions instead of
+     * autocommit mode. Generated keys are written back into entities.
+     * @param chunkSize max count of entities committed in one transaction, 0 or less to save all
+     *                  entities in single transaction. If some entity fails to save previously
+     *                  committed chunks are kept in DB.
+     * @return count of saved entities
+     */
+    int saveAll(Collection<?> entities, int chunkSize) throws IllegalAccessException {
+        if (entities == null || entities.isEmpty()) return 0;
+        if (chunkSize <= 0) {
+            chunkSize = entities.size();
+        }
+        DBConnection connection = connection();
+        int saved = 0;
+        Iterator<?> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            List<Object> chunk = new ArrayList<>(Math.min(chunkSize, entities.size()));
+            boolean committed = false;
+            connection.beginTransaction();
+            try {
+                for (int i = 0; i < chunkSize && iterator.hasNext(); i++) {
+                    Object entity = iterator.next();
+                    chunk.add(entity);
+                    if (save(entity) != -1) {
+                        saved++;
+                    }
+                }
+                connection.setTransactionSuccessful();
+                committed = true;
+            } finally {
+                connection.endTransaction();
+                if (!committed) {
+                    //rolled back rows must not stay in entity cache and change tracking
+                    for (Object entity : chunk) {
+                        forgetEntity(models.getClassInfo(entity.getClass()), entity);
+                    }
+                }
+            }
+        }
+        return saved;
+    }
+
+    int delete(Object entity) {
+        ClassInfo classInfo = models.getClassInfo(entity.getClass());
+        if (classInfo.primaryKey == null) {
+            throw new IllegalArgumentException("Can not delete " + entity.getClass().getName() + " without primary key");
+        }
+        String query = classInfo.getDeleteSql(1);
+        DBStatement statement = acquireStatement(query);
+        int deleted;
+        try {
+            classInfo.bindColumnValue(classInfo.primaryKey, entity, 1, statement);
+            long start = profileStart();
+            deleted = statement.executeUpdateDelete();
+            profileEnd(query, start, deleted);
+        } finally {
+            releaseStatement(query, statement);
+        }
+        forgetEntity(classInfo, entity);
+        onTableChanged(classInfo.tableName);
+        return deleted;
+    }
+
+    /**
+     * Deletes items by primary key with "DELETE ... WHERE key IN (?,...)" statements of
+     * chunkSize parameters each, all chunks are executed in single transaction.
+     * Collection may contain objects of different model classes.
+     * @param chunkSize count of keys deleted by one statement, from 1 to {@link ASQL#MAX_SQL_VARIABLES}
+     * @return count of deleted rows
+     */
+    int delete(Collection items, int chunkSize) {
+        if (items == null || items.isEmpty()) return 0;
+        if (chunkSize < 1 || chunkSize > MAX_SQL_VARIABLES) {
+            throw new IllegalArgumentException("chunkSize should be from 1 to " + MAX_SQL_VARIABLES);
+        }
+        Map<ClassInfo, List<Object>> itemsByClass = new LinkedHashMap<>();
+        for (Object item : items) {
+            ClassInfo classInfo = models.getClassInfo(item.getClass());
+            if (classInfo.primaryKey == null) {
+                throw new IllegalArgumentException("Can not delete " + item.getClass().getName() + " without primary key");
+            }
+            List<Object> classItems = itemsByClass.get(classInfo);
+            if (classItems == null) {
+                classItems = new ArrayList<>();
+                itemsByClass.put(classInfo, classItems);
+            }
+            classItems.add(item);
+        }
+        DBConnection connection = connection();
+        int deleted = 0;
+        connection.beginTransaction();
+        try {
+            for (Map.Entry<ClassInfo, List<Object>> e : itemsByClass.entrySet()) {
+                deleted += deleteInChunks(e.getKey(), e.getValue(), chunkSize);
+            }
+            connection.setTransactionSuccessful();
+        } finally {
+            connection.endTransaction();
+        }
+        for (ClassInfo classInfo : itemsByClass.keySet()) {
+            onTableChanged(classInfo.tableName);
+        }
+        return deleted;
+    }
+
+    private int deleteInChunks(ClassInfo classInfo, List<Object> items, int chunkSize) {
+        String query = classInfo.getDeleteSql(chunkSize);
+        DBStatement statement = acquireStatement(query);
+        int deleted = 0;
+        try {
+            for (int chunkStart = 0; chunkStart < items.size(); chunkStart += chunkSize) {
+                int chunkEnd = Math.min(chunkStart + chunkSize, items.size());
+                statement.clearBindings();
+                for (int i = 0; i < chunkSize; i++) {
+                    //last chunk is padded with its last key, duplicates in IN (...) do not affect result
+                    Object item = items.get(Math.min(chunkStart + i, chunkEnd - 1));
+                    classInfo.primaryKey.accessor.bind(item, statement, i + 1);
+                }
+                long start = profileStart();
+                int chunkDeleted = statement.executeUpdateDelete();
+                profileEnd(query, start, chunkDeleted);
+                deleted += chunkDeleted;
+            }
+        } finally {
+            releaseStatement(query, statement);
+        }
+        if (classInfo.cache != null || classInfo.snapshots != null) {
+            for (Object item : items) {
+                forgetEntity(classInfo, item);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Removes deleted (or not stored) entity from entity cache and change tracking
+     */
+    void forgetEntity(ClassInfo classInfo, Object entity) {
+        if (classInfo.snapshots != null) {
+            classInfo.snapshots.remove(entity);
+        }
+        if (classInfo.cache != null) {
+            try {
+                classInfo.cache.remove(classInfo.getPrimaryKeyValue(entity));
+            } catch (IllegalAccessException e) {
+                classInfo.cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Finds entity by integer primary key, served from entity cache when model has one
+     * (see {@link com.phlox.asql.annotations.DBTable#cacheSize()})
+     */
+    <T> T findByPrimaryKey(Class<T> type, long key) throws IllegalAccessException, InstantiationException {
+        ClassInfo classInfo = models.getClassInfo(type);
+        if (classInfo.primaryKey == null) {
+            throw new IllegalArgumentException(type.getName() + " has no primary key");
+        }
+        long stamp = 0;
+        if (classInfo.cache != null) {
+            Object cached = classInfo.cache.get(key);
+            if (cached != null) {
+                return (T) cached;
+            }
+            //writers may delete or replace entity while it is read, then it should not be cached
+            stamp = classInfo.cache.getModificationStamp();
+        }
+        T result = queryFirst(type, classInfo.getSelectByKeySql(), new Object[]{key});
+        if (result != null && classInfo.cache != null) {
+            classInfo.cache.putIfUnmodified(key, result, stamp);
+        }
+        return result;
+    }
+
+    /**
+     * @param whereClause filter or null to read first row of table
+     * @param fields names of fields or columns to read or null to read all columns
+     */
+    <T> T find(Class<T> type, String[] fields, String whereClause, Object[] args) throws IllegalAccessException, InstantiationException {
+        return queryFirst(type, selectSql(type, fields, whereClause), args);
+    }
+
+    <T> List<T> findAll(Class<T> type, String[] fields, String whereClause, Object[] args) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return queryAll(type, selectSql(type, fields, whereClause), args);
+    }
+
+    private String selectSql(Class type, String[] fields, String whereClause) {
+        ClassInfo classInfo = models.getClassInfo(type);
+        String query = fields != null ? classInfo.getSelectSql(fields) : classInfo.getSelectSql();
+        if (whereClause != null && !whereClause.isEmpty()) {
+            query += " WHERE " + whereClause;
+        }
+        return query;
+    }
+
+    <T> T queryFirst(Class<T> type, String query, Object[] args) throws IllegalAccessException, InstantiationException {
+        DBCursor cursor = query(query, args);
+        T result = null;
+        long start = profileStart();
+        try {
+            if (cursor.moveToNext()) {
+                result = (T) models.instantiateObjectFromCursor(type, cursor);
+            }
+        } finally {
+            cursor.close();
+        }
+        profileEnd(query, start, result != null ? 1 : 0);
+        return result;
+    }
+
+    <T> List<T> queryAll(Class<T> type, String query, Object[] args) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        DBCursor cursor = query(query, args);
+        List<T> result;
+        long start = profileStart();
+        try {
+            result = (List<T>) models.instantiateObjectsFromCursor(type, cursor);
+        } finally {
+            cursor.close();
+        }
+        profileEnd(query, start, result.size());
+        return result;
+    }
+}
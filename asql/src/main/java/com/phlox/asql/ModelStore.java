@@ -0,0 +1,155 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBStatement;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Synchronous CRUD over models through {@link DBConnection} only, so models can be used outside
+ * of Android (for example on JVM with sqlite-jdbc driver, in server code or unit tests).
+ * Unlike {@link ASQL} there is no executors, async callbacks, invalidation tracking or profiler.
+ * Saving, deleting and reading models (including entity cache and change tracking) share the
+ * same implementation with ASQL.
+ */
+public class ModelStore {
+    public static final int DEFAULT_SAVE_CHUNK_SIZE = 500;
+
+    private final DBConnection connection;
+    private final ModelsInfoProcessor models;
+    private final StatementCache statementCache = new StatementCache(StatementCache.DEFAULT_MAX_SIZE);
+    private final ModelOperations operations;
+
+    public ModelStore(DBConnection connection) {
+        this(connection, new ModelsInfoProcessor());
+    }
+
+    public ModelStore(final DBConnection connection, ModelsInfoProcessor models) {
+        this.connection = connection;
+        this.models = models;
+        operations = new ModelOperations(models) {
+            @Override
+            DBConnection connection() {
+                return connection;
+            }
+
+            @Override
+            DBStatement acquireStatement(String sql) {
+                return statementCache.acquire(connection, sql);
+            }
+
+            @Override
+            void releaseStatement(String sql, DBStatement statement) {
+                statementCache.release(sql, statement);
+            }
+        };
+    }
+
+    public DBConnection getConnection() {
+        return connection;
+    }
+
+    public ModelsInfoProcessor getModels() {
+        return models;
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * Creates tables and indexes of models (see {@link SchemaGenerator})
+     */
+    public void createTables(Class... types) {
+        for (Class type : types) {
+            SchemaGenerator.createTable(connection, models.getClassInfo(type));
+        }
+    }
+
+    /**
+     * Creates missing tables, columns and indexes of models, see {@link ASQL#upgradeSchema}
+     * @return executed statements
+     */
+    public List<String> upgradeSchema(Class... types) {
+        List<String> executed = new ArrayList<>();
+        for (Class type : types) {
+            executed.addAll(SchemaGenerator.upgradeTable(connection, models.getClassInfo(type)));
+        }
+        return executed;
+    }
+
+    /**
+     * Inserts or replaces row of entity, models with change tracking are updated by changed columns
+     * only, see {@link ASQL#save(Object)}
+     * @return row id of entity
+     */
+    public long save(Object entity) throws IllegalAccessException {
+        return operations.save(entity);
+    }
+
+    public int saveAll(Collection<?> entities) throws IllegalAccessException {
+        return saveAll(entities, DEFAULT_SAVE_CHUNK_SIZE);
+    }
+
+    /**
+     * Saves entities inside transactions of chunkSize entities, see {@link ASQL#saveAll(Collection, int)}
+     * @return count of saved entities
+     */
+    public int saveAll(Collection<?> entities, int chunkSize) throws IllegalAccessException {
+        return operations.saveAll(entities, chunkSize);
+    }
+
+    public int delete(Object entity) {
+        return operations.delete(entity);
+    }
+
+    /**
+     * Deletes items by primary key in one transaction, see {@link ASQL#delete(Collection, int)}
+     */
+    public int delete(Collection items, int chunkSize) {
+        return operations.delete(items, chunkSize);
+    }
+
+    public long count(Class type) {
+        return operations.count(type);
+    }
+
+    public <T> T findByPrimaryKey(Class<T> type, long key) throws IllegalAccessException, InstantiationException {
+        return operations.findByPrimaryKey(type, key);
+    }
+
+    /**
+     * @param whereClause filter or null to read first row of table
+     * @param args arguments bound by their types, see {@link DBConnection#query(String, Object[])}
+     */
+    public <T> T find(Class<T> type, String whereClause, Object... args) throws IllegalAccessException, InstantiationException {
+        return operations.find(type, null, whereClause, args);
+    }
+
+    public <T> List<T> loadAll(Class<T> type) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return queryAll(type, models.getClassInfo(type).getSelectSql());
+    }
+
+    public <T> List<T> queryAll(Class<T> type, String query, Object... args) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return operations.queryAll(type, query, args);
+    }
+
+    /**
+     * Iterates over query result hydrating rows one by one, iterator must be closed if it was not
+     * read till the end
+     */
+    public <T> CloseableIterator<T> stream(Class<T> type, String query, Object... args) {
+        return models.iterateObjectsFromCursor(type, connection.query(query, args), false);
+    }
+
+    /**
+     * Closes cached statements and connection
+     */
+    public void close() {
+        statementCache.close();
+        connection.close();
+    }
+}
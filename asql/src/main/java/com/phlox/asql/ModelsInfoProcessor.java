@@ -1,21 +1,24 @@
 package com.phlox.asql;
 
-import android.database.Cursor;
-import android.database.DatabaseUtils;
-import android.database.sqlite.SQLiteStatement;
-
 import com.phlox.asql.annotations.DBColumn;
 import com.phlox.asql.annotations.DBIgnore;
+import com.phlox.asql.annotations.DBIndex;
 import com.phlox.asql.annotations.DBTable;
 import com.phlox.asql.annotations.MarkMode;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,20 +26,44 @@ import java.util.regex.Pattern;
  * Created by PDT on 12.09.2016.
  */
 public class ModelsInfoProcessor extends Object{
+    //java.util.logging is forwarded to logcat on Android and keeps model mapping free of Android classes
+    private static final Logger LOG = Logger.getLogger(ModelsInfoProcessor.class.getSimpleName());
     public static final String NULL_SQL_VALUE_AS_STRING = "NULL";
-    private Map<String, ClassInfo> classInfoCache = new TreeMap<>();
+    /**
+     * Keyed by class identity, ClassInfo is put here only after it was fully built
+     */
+    private final ConcurrentMap<Class, ClassInfo> classInfoCache = new ConcurrentHashMap<>();
+    private final TypeConverters typeConverters;
+
+    public ModelsInfoProcessor() {
+        this(TypeConverters.getDefault());
+    }
+
+    public ModelsInfoProcessor(TypeConverters typeConverters) {
+        this.typeConverters = typeConverters;
+    }
+
+    public TypeConverters getTypeConverters() {
+        return typeConverters;
+    }
 
     public ClassInfo getClassInfo(Class type) {
         return parseClassFields(type);
     }
 
-    public List instantiateObjectsFromCursor(Class type, Cursor cursor) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
-        ArrayList results = new ArrayList();
-        ClassInfo classInfo = parseClassFields(type);
-        String[] columns = cursor.getColumnNames();
-        for (int i = 0; i < columns.length; i++) {
-            columns[i] = columns[i].toLowerCase();
+    /**
+     * Parses models metadata in advance, so first query of these models does not pay reflection cost
+     */
+    public void registerModels(Class... types) {
+        for (Class type : types) {
+            parseClassFields(type);
         }
+    }
+
+    public List instantiateObjectsFromCursor(Class type, DBCursor cursor) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
+        ArrayList results = new ArrayList(Math.max(cursor.getCount(), 0));
+        ClassInfo classInfo = parseClassFields(type);
+        ColumnInfo[] columns = classInfo.mapCursorColumns(cursor);
 
         while (cursor.moveToNext()) {
             Object newInstance = instantiateObjectFromCursor(type, cursor, classInfo, columns);
@@ -45,62 +72,68 @@ public class ModelsInfoProcessor extends Object{
         return results;
     }
 
-    public Object instantiateObjectFromCursor(Class type, Cursor cursor) throws InstantiationException, IllegalAccessException {
+    public Object instantiateObjectFromCursor(Class type, DBCursor cursor) throws InstantiationException, IllegalAccessException {
         ClassInfo classInfo = parseClassFields(type);
-        String[] columns = cursor.getColumnNames();
+        return instantiateObjectFromCursor(type, cursor, classInfo, classInfo.mapCursorColumns(cursor));
+    }
+
+    /**
+     * @param columns model columns for every cursor column as returned by {@link ClassInfo#mapCursorColumns(DBCursor)}
+     */
+    Object instantiateObjectFromCursor(Class type, DBCursor cursor, ClassInfo classInfo, ColumnInfo[] columns) throws InstantiationException, IllegalAccessException {
+        Object newInstance = classInfo.mapper != null ? classInfo.mapper.newInstance() : type.newInstance();
         for (int i = 0; i < columns.length; i++) {
-            columns[i] = columns[i].toLowerCase();
+            ColumnInfo column = columns[i];
+            if (column == null || cursor.isNull(i)) continue;
+            column.accessor.read(newInstance, cursor, i);
+        }
+        if (classInfo.snapshots != null) {
+            classInfo.snapshots.take(newInstance);
         }
-        return instantiateObjectFromCursor(type, cursor, classInfo, columns);
+        return newInstance;
     }
 
-    private Object instantiateObjectFromCursor(Class type, Cursor cursor, ClassInfo classInfo, String[] columns) throws InstantiationException, IllegalAccessException {
-        Object newInstance = type.newInstance();
+    /**
+     * Overwrites all mapped fields of already existing object with values of current cursor row.
+     * Unlike instantiation NULL values reset fields to java defaults (0, false, null).
+     */
+    void fillObjectFromCursor(Object entity, DBCursor cursor, ClassInfo classInfo, ColumnInfo[] columns) throws IllegalAccessException {
         for (int i = 0; i < columns.length; i++) {
-            if (cursor.isNull(i)) continue;
-            ColumnInfo column = classInfo.fields.get(columns[i]);
+            ColumnInfo column = columns[i];
             if (column == null) continue;
-            Field field = column.field;
-            if (field == null) continue;
-            if (!field.isAccessible()) {
-                field.setAccessible(true);
+            if (cursor.isNull(i)) {
+                column.accessor.clear(entity);
+            } else {
+                column.accessor.read(entity, cursor, i);
             }
-            if (field.getType().equals(String.class))
-                field.set(newInstance, cursor.getString(i));
-            else if (field.getType().equals(int.class))
-                field.setInt(newInstance, cursor.getInt(i));
-            else if (field.getType().equals(short.class))
-                field.setShort(newInstance, cursor.getShort(i));
-            else if (field.getType().equals(byte.class))
-                field.setByte(newInstance, (byte) cursor.getShort(i));
-            else if (field.getType().equals(char.class))
-                field.setChar(newInstance, (char) cursor.getInt(i));
-            else if (field.getType().equals(long.class))
-                field.setLong(newInstance, cursor.getLong(i));
-            else if (field.getType().equals(float.class))
-                field.setFloat(newInstance, cursor.getFloat(i));
-            else if (field.getType().equals(double.class))
-                field.setDouble(newInstance, cursor.getDouble(i));
-            else if (field.getType().equals(boolean.class))
-                field.setBoolean(newInstance, cursor.getInt(i) != 0);
         }
-        return newInstance;
+        if (classInfo.snapshots != null) {
+            classInfo.snapshots.take(entity);
+        }
+    }
+
+    public <T> CloseableIterator<T> iterateObjectsFromCursor(Class<T> type, DBCursor cursor, boolean reuseInstance) {
+        return new CursorIterator<>(this, type, cursor, reuseInstance);
     }
 
     private ClassInfo parseClassFields(Class type) {
-        ClassInfo classInfo = classInfoCache.get(type.getName());
+        ClassInfo classInfo = classInfoCache.get(type);
         if (classInfo == null) {
             classInfo = new ClassInfo();
             MarkMode mode = MarkMode.ALL_EXCEPT_IGNORED;
             DBTable tableAnnotation = (DBTable) type.getAnnotation(DBTable.class);
             if (tableAnnotation != null) {
                 mode = tableAnnotation.markMode();
+                classInfo.projection = tableAnnotation.projection();
+                classInfo.withoutRowId = tableAnnotation.withoutRowId();
                 classInfo.tableName = tableAnnotation.name();
             }
             if ("".equals(classInfo.tableName)) {
                 classInfo.tableName = camelCaseToDBCase(type.getSimpleName());
             }
 
+            List<ColumnInfo> indexedColumns = new ArrayList<>();
+            List<ColumnInfo> uniqueColumns = new ArrayList<>();
             Field[] fields = type.getDeclaredFields();
             for (Field field : fields) {
                 int mods = field.getModifiers();
@@ -108,7 +141,10 @@ public class ModelsInfoProcessor extends Object{
                         Modifier.isFinal(mods) ||
                         "serialVersionUID".equals(field.getName()) ||
                         field.isAnnotationPresent(DBIgnore.class)) continue;
-                ColumnInfo columnInfo = new ColumnInfo(field);
+                Class fieldType = field.getType();
+                //converter is resolved once here, reads and binds of column use it directly
+                ColumnInfo columnInfo = new ColumnInfo(field,
+                        ColumnAccessor.isNativeType(fieldType) ? null : typeConverters.find(fieldType));
                 String name;
                 if (field.isAnnotationPresent(DBColumn.class)) {
                     DBColumn annotation = field.getAnnotation(DBColumn.class);
@@ -117,25 +153,116 @@ public class ModelsInfoProcessor extends Object{
                         columnInfo.primaryKey = true;
                         classInfo.primaryKey = columnInfo;
                     }
+                    columnInfo.autoIncrement = annotation.autoIncrement();
+                    if (annotation.unique()) {
+                        uniqueColumns.add(columnInfo);
+                    } else if (annotation.indexed()) {
+                        indexedColumns.add(columnInfo);
+                    }
                 } else {
                     if (MarkMode.ONLY_COLUMN_MARKED.equals(mode)) continue;
                     name = camelCaseToDBCase(field.getName());
                 }
                 columnInfo.name = name;
+                if (columnInfo.converter == null && !ColumnAccessor.isNativeType(fieldType)) {
+                    LOG.warning("No type converter for " + fieldType.getName() + " field " + field.getName() +
+                            " of " + type.getName() + ", it is always NULL in database");
+                }
                 classInfo.fields.put(name, columnInfo);
             }
-            classInfoCache.put(type.getName(), classInfo);
-        }
-        if (classInfo.primaryKey == null) {
-            ColumnInfo ci = classInfo.fields.get("id");
-            if (ci != null) {
-                ci.primaryKey = true;
-                classInfo.primaryKey = ci;
+            if (classInfo.primaryKey == null) {
+                ColumnInfo ci = classInfo.fields.get("id");
+                if (ci != null) {
+                    ci.primaryKey = true;
+                    classInfo.primaryKey = ci;
+                }
+            }
+            classInfo.mapper = findGeneratedMapper(type, classInfo);
+            classInfo.prepare();
+            parseIndexes(classInfo, tableAnnotation, indexedColumns, uniqueColumns);
+            if (tableAnnotation != null && tableAnnotation.cacheSize() > 0) {
+                if (classInfo.hasIntegerPrimaryKey()) {
+                    classInfo.cache = new EntityCache(tableAnnotation.cacheSize(), tableAnnotation.softCache());
+                } else {
+                    LOG.warning("Entity cache of " + type.getName() + " disabled, only models with integer primary key can be cached");
+                }
+            }
+            if (tableAnnotation != null && tableAnnotation.trackChanges()) {
+                if (classInfo.hasIntegerPrimaryKey()) {
+                    classInfo.snapshots = new EntitySnapshots(classInfo.columns);
+                } else {
+                    LOG.warning("Change tracking of " + type.getName() + " disabled, only models with integer primary key can be tracked");
+                }
+            }
+            //if other thread was faster use its instance, so everybody shares the same ClassInfo
+            ClassInfo existing = classInfoCache.putIfAbsent(type, classInfo);
+            if (existing != null) {
+                classInfo = existing;
             }
         }
         return classInfo;
     }
 
+    private void parseIndexes(ClassInfo classInfo, DBTable tableAnnotation, List<ColumnInfo> indexedColumns,
+                              List<ColumnInfo> uniqueColumns) {
+        for (ColumnInfo column : uniqueColumns) {
+            ColumnInfo[] columns = {column};
+            classInfo.indexes.add(new IndexInfo(IndexInfo.defaultName(classInfo.tableName, columns), true, columns));
+        }
+        for (ColumnInfo column : indexedColumns) {
+            ColumnInfo[] columns = {column};
+            classInfo.indexes.add(new IndexInfo(IndexInfo.defaultName(classInfo.tableName, columns), false, columns));
+        }
+        if (tableAnnotation == null) return;
+        for (DBIndex index : tableAnnotation.indexes()) {
+            ColumnInfo[] columns = new ColumnInfo[index.columns().length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = classInfo.findColumn(index.columns()[i]);
+                if (columns[i] == null) {
+                    throw new IllegalArgumentException("Unknown index column " + index.columns()[i] + " of table " + classInfo.tableName);
+                }
+            }
+            String name = "".equals(index.name()) ? IndexInfo.defaultName(classInfo.tableName, columns) : index.name();
+            classInfo.indexes.add(new IndexInfo(name, index.unique(), columns));
+        }
+    }
+
+    private Mapper findGeneratedMapper(Class type, ClassInfo classInfo) {
+        String packageName = type.getPackage() != null ? type.getPackage().getName() : "";
+        String flatName = type.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+                .replace('$', '_');
+        String mapperClassName = (packageName.isEmpty() ? "" : packageName + ".") + flatName + Mapper.GENERATED_CLASS_SUFFIX;
+        Mapper mapper;
+        try {
+            mapper = (Mapper) Class.forName(mapperClassName, true, type.getClassLoader()).newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Can not instantiate generated mapper " + mapperClassName + ", reflection will be used", e);
+            return null;
+        }
+        String[] columnNames = mapper.getColumnNames();
+        if (columnNames.length != classInfo.fields.size()) {
+            LOG.warning("Generated mapper " + mapperClassName + " is out of date, reflection will be used");
+            return null;
+        }
+        for (int i = 0; i < columnNames.length; i++) {
+            if (!classInfo.fields.containsKey(columnNames[i])) {
+                LOG.warning("Generated mapper " + mapperClassName + " is out of date, reflection will be used");
+                return null;
+            }
+        }
+        for (int i = 0; i < columnNames.length; i++) {
+            ColumnInfo column = classInfo.fields.get(columnNames[i]);
+            column.mapperIndex = i;
+            //converters are registered at runtime, generated code does not know them
+            if (column.converter == null) {
+                column.accessor = ColumnAccessor.forMapper(mapper, i);
+            }
+        }
+        return mapper;
+    }
+
     private String camelCaseToDBCase(String name) {
         StringBuffer sb = new StringBuffer(name.length());
         for (int i = 0; i < name.length(); i++) {
@@ -153,6 +280,10 @@ public class ModelsInfoProcessor extends Object{
     }
 
     private Pattern sqlValuePattern = Pattern.compile(":([a-zA-Z_$][a-zA-Z_$0-9]*)");
+    /**
+     * Inlines values into SQL as literals, prefer {@link ClassInfo#getSQLTemplate(String)} that binds
+     * values as statement parameters.
+     */
     public String formatSQL(String sql, Object values) {
         ClassInfo classInfo = parseClassFields(values.getClass());
         Matcher matcher = sqlValuePattern.matcher(sql);
@@ -161,9 +292,8 @@ public class ModelsInfoProcessor extends Object{
             String foundName = matcher.group(1).toLowerCase();
             ColumnInfo column = classInfo.fields.get(foundName);
             if (column == null) continue;
-            Field field = column.field;
-            if (field == null) continue;
-            String sqlValue = getFieldValueAsString(field, values);
+            if (column.field == null) continue;
+            String sqlValue = getColumnValueAsString(column, values);
             matcher.appendReplacement(sb, sqlValue);
         }
         matcher.appendTail(sb);
@@ -180,7 +310,7 @@ public class ModelsInfoProcessor extends Object{
                 if (val == null) {
                     return NULL_SQL_VALUE_AS_STRING;
                 }
-                return DatabaseUtils.sqlEscapeString((String) val);
+                return StringUtils.sqlEscapeString((String) val);
             } else if (field.getType().equals(long.class) || field.getType().equals(int.class) ||
                     field.getType().equals(short.class) || field.getType().equals(byte.class))
                 return Long.toString(field.getLong(obj));
@@ -190,12 +320,32 @@ public class ModelsInfoProcessor extends Object{
                 return Double.toString(field.getDouble(obj));
             else if (field.getType().equals(boolean.class))
                 return field.getBoolean(obj) ? "1" : "0";
+            else if (field.getType().equals(byte[].class) || field.getType().equals(ByteBuffer.class)) {
+                Object val = field.get(obj);
+                if (val == null) {
+                    return NULL_SQL_VALUE_AS_STRING;
+                }
+                return StringUtils.sqlBlobLiteral(val instanceof byte[] ? ByteBuffer.wrap((byte[]) val) : (ByteBuffer) val);
+            }
         } catch (Exception e) {
         }
         return "";
     }
 
-    public static void bindFieldValueToPreparedStatement(Field field, Object obj, int index, SQLiteStatement statement) {
+    @SuppressWarnings("unchecked")
+    private static String getColumnValueAsString(ColumnInfo column, Object obj) {
+        if (column.converter == null) {
+            return getFieldValueAsString(column.field, obj);
+        }
+        try {
+            Object val = column.field.get(obj);
+            return val == null ? NULL_SQL_VALUE_AS_STRING : column.converter.toSqlLiteral(val);
+        } catch (IllegalAccessException e) {
+            return "";
+        }
+    }
+
+    public static void bindFieldValueToPreparedStatement(Field field, Object obj, int index, DBStatement statement) {
         try {
             if (!field.isAccessible()) {
                 field.setAccessible(true);
@@ -217,9 +367,16 @@ public class ModelsInfoProcessor extends Object{
             } else if (field.getType().equals(double.class) || field.getType().equals(float.class)) {
                 statement.bindDouble(index, field.getDouble(obj));
                 return;
-            } else if (field.getType().equals(boolean.class))
+            } else if (field.getType().equals(boolean.class)) {
                 statement.bindLong(index, field.getBoolean(obj) ? 1 : 0);
                 return;
+            } else if (field.getType().equals(byte[].class)) {
+                ColumnAccessor.bindBlob(statement, index, (byte[]) field.get(obj));
+                return;
+            } else if (field.getType().equals(ByteBuffer.class)) {
+                ColumnAccessor.bindBlob(statement, index, (ByteBuffer) field.get(obj));
+                return;
+            }
         } catch (Exception e) {
         }
         statement.bindNull(index);
@@ -231,7 +388,7 @@ public class ModelsInfoProcessor extends Object{
         StringBuffer sb = new StringBuffer();
         if (!classInfo.fields.isEmpty()) {
             for (Map.Entry<String, ColumnInfo> e : classInfo.fields.entrySet()) {
-                sb.append(getFieldValueAsString(e.getValue().field, entity));
+                sb.append(getColumnValueAsString(e.getValue(), entity));
                 sb.append(',');
             }
             sb.deleteCharAt(sb.length() - 1);
@@ -0,0 +1,94 @@
+package com.phlox.asql;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Query that is re-run every time one of tables it reads from is changed through ASQL
+ * (see {@link InvalidationTracker}), results are delivered to callback on main thread.
+ * Invalidations that happen while query is running are coalesced into one more run.
+ * Must be closed when results are not needed anymore.
+ */
+public class ObservableQuery<T> implements InvalidationTracker.Observer {
+    private final ASQL asql;
+    private final Class<T> type;
+    private final String query;
+    private final String[] selectionArgs;
+    private final ASQL.ResultCallback<List<T>> callback;
+    private boolean running = false;
+    private boolean invalidated = false;
+    private volatile boolean closed = false;
+    private volatile DBFuture<List<T>> future;
+
+    ObservableQuery(ASQL asql, Class<T> type, String query, ASQL.ResultCallback<List<T>> callback, String... selectionArgs) {
+        this.asql = asql;
+        this.type = type;
+        this.query = query;
+        this.callback = callback;
+        this.selectionArgs = selectionArgs;
+    }
+
+    void start(Collection<String> tables) {
+        asql.getInvalidationTracker().addObserver(this, tables);
+        refresh();
+    }
+
+    /**
+     * Re-runs query (or schedules one more run if it is running now)
+     */
+    public void refresh() {
+        synchronized (this) {
+            if (closed) return;
+            if (running) {
+                invalidated = true;
+                return;
+            }
+            running = true;
+        }
+        future = asql.submitRead(new DBOperation<List<T>>() {
+            @Override
+            public List<T> run(ASQL asql) throws Exception {
+                return asql.queryAll(type, query, selectionArgs);
+            }
+        }).onDone(null, new ASQL.ResultCallback<List<T>>() {
+            @Override
+            public void onDone(final List<T> result, final Exception exception) {
+                asql.getMainThreadExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!closed) {
+                            callback.onDone(result, exception);
+                        }
+                    }
+                });
+                boolean rerun;
+                synchronized (ObservableQuery.this) {
+                    running = false;
+                    rerun = invalidated;
+                    invalidated = false;
+                }
+                if (rerun) {
+                    refresh();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onInvalidated(Set<String> tables) {
+        refresh();
+    }
+
+    /**
+     * Stops observing, results not delivered yet are dropped
+     */
+    public void close() {
+        closed = true;
+        asql.getInvalidationTracker().removeObserver(this);
+        DBFuture<List<T>> future = this.future;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+}
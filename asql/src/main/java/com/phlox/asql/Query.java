@@ -0,0 +1,370 @@
+package com.phlox.asql;
+
+import android.database.SQLException;
+import android.text.TextUtils;
+
+import com.phlox.asql.driver.BindArgs;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fluent builder of model queries validated against model columns:
+ * <pre>
+ * Query&lt;Note&gt; query = asql.query(Note.class)
+ *         .where("modificationTime", "&gt;").and("title", "LIKE")
+ *         .orderBy("modificationTime", true).limit(50);
+ * List&lt;Note&gt; notes = query.args(since, "%todo%").list();
+ * </pre>
+ * Fields can be referenced by field or column name, SQL is built in canonical form once and
+ * reused, so all queries of the same shape share one compiled statement. Arguments are bound
+ * with their types (Long, Integer, Short, Byte, Double, Float, Boolean, String, byte[] or null).
+ * The same query can be executed again with new {@link #args(Object...)} or {@link #limit(int)}
+ * without rebuilding SQL. Not thread safe, but async methods capture arguments at the moment of call.
+ */
+public class Query<T> {
+    private static final List<String> OPERATORS = Arrays.asList(
+            "=", "!=", "<", "<=", ">", ">=", "LIKE", "GLOB", "IS NULL", "IS NOT NULL");
+
+    private final ASQL asql;
+    private final Class<T> type;
+    private final ClassInfo classInfo;
+    private String[] selectedFields;
+    private final StringBuilder where = new StringBuilder();
+    private int whereArgsCount = 0;
+    private final List<String> groupBy = new ArrayList<>();
+    private final List<String> orderBy = new ArrayList<>();
+    private Object[] args = new Object[0];
+    private int limit = -1;
+    private int offset = -1;
+
+    private String sql;
+    private String firstSql;
+    private String countSql;
+
+    Query(ASQL asql, Class<T> type) {
+        this.asql = asql;
+        this.type = type;
+        classInfo = asql.getModels().getClassInfo(type);
+    }
+
+    /**
+     * Reads only given fields (and primary key), see {@link ASQL#find(Class, String[], String, String...)}
+     */
+    public Query<T> select(String... fields) {
+        selectedFields = fields;
+        return changed();
+    }
+
+    /**
+     * Same as {@link #and(String, String)}
+     */
+    public Query<T> where(String field, String operator) {
+        return and(field, operator);
+    }
+
+    /**
+     * Adds "field operator ?" condition (or "field IS [NOT] NULL" without argument) joined with AND
+     * @param operator one of =, !=, &lt;, &lt;=, &gt;, &gt;=, LIKE, GLOB, IS NULL, IS NOT NULL
+     */
+    public Query<T> and(String field, String operator) {
+        return condition(" AND ", field, operator);
+    }
+
+    /**
+     * Adds condition joined with OR (AND conditions are evaluated first, as usual in SQL)
+     */
+    public Query<T> or(String field, String operator) {
+        return condition(" OR ", field, operator);
+    }
+
+    public Query<T> groupBy(String... fields) {
+        for (String field : fields) {
+            groupBy.add(column(field));
+        }
+        return changed();
+    }
+
+    public Query<T> orderBy(String field, boolean descending) {
+        orderBy.add(descending ? column(field) + " DESC" : column(field));
+        return changed();
+    }
+
+    /**
+     * Values of "?" placeholders of conditions in order they were added
+     */
+    public Query<T> args(Object... values) {
+        args = values != null ? values : new Object[0];
+        return this;
+    }
+
+    /**
+     * @param limit max count of rows or -1 for no limit
+     */
+    public Query<T> limit(int limit) {
+        if ((limit < 0) != (this.limit < 0)) {
+            changed();
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param offset count of rows to skip or -1, used only together with limit
+     */
+    public Query<T> offset(int offset) {
+        if ((offset < 0) != (this.offset < 0)) {
+            changed();
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return canonical SQL of this query
+     */
+    public String getSql() {
+        if (sql == null) {
+            StringBuilder sb = new StringBuilder(selectedFields != null ?
+                    classInfo.getSelectSql(selectedFields) : classInfo.getSelectSql());
+            appendTail(sb);
+            sql = sb.toString();
+        }
+        return sql;
+    }
+
+    public List<T> list() throws InstantiationException, IllegalAccessException {
+        return list(getSql(), boundArgs(true));
+    }
+
+    public DBFuture<List<T>> list(ASQL.ResultCallback<List<T>> callback) {
+        final String sql = getSql();
+        final Object[] args = boundArgs(true);
+        return asql.submitRead(new DBOperation<List<T>>() {
+            @Override
+            public List<T> run(ASQL asql) throws Exception {
+                return list(sql, args);
+            }
+        }).onDone(callback);
+    }
+
+    /**
+     * @return first row or null
+     */
+    public T first() throws InstantiationException, IllegalAccessException {
+        return first(getFirstSql(), boundArgs(limit >= 0));
+    }
+
+    public DBFuture<T> first(ASQL.ResultCallback<T> callback) {
+        final String sql = getFirstSql();
+        final Object[] args = boundArgs(limit >= 0);
+        return asql.submitRead(new DBOperation<T>() {
+            @Override
+            public T run(ASQL asql) throws Exception {
+                return first(sql, args);
+            }
+        }).onDone(callback);
+    }
+
+    /**
+     * @return count of rows matching query
+     */
+    public long count() throws SQLException {
+        return count(getCountSql(), boundArgs(true));
+    }
+
+    public DBFuture<Long> count(ASQL.ResultCallback<Long> callback) {
+        final String sql = getCountSql();
+        final Object[] args = boundArgs(true);
+        return asql.submitRead(new DBOperation<Long>() {
+            @Override
+            public Long run(ASQL asql) throws Exception {
+                return count(sql, args);
+            }
+        }).onDone(callback);
+    }
+
+    /**
+     * See {@link ASQL#stream(Class, String, String...)}
+     */
+    public CloseableIterator<T> stream() {
+        String sql = getSql();
+        DBCursor cursor = asql.rawQuery(sql, boundArgs(true));
+        asql.profileCursor(sql, cursor);
+        return asql.getModels().iterateObjectsFromCursor(type, cursor, false);
+    }
+
+    /**
+     * Reads given columns of matching rows into primitive buffers without instantiating models
+     * @return count of read rows
+     */
+    public int readColumns(ColumnBuffers columns) {
+        return asql.readColumns(getColumnsSql(columns), columns, true, boundArgs(true));
+    }
+
+    public DBFuture<Integer> readColumns(final ColumnBuffers columns, ASQL.ResultCallback<Integer> callback) {
+        final String sql = getColumnsSql(columns);
+        final Object[] args = boundArgs(true);
+        return asql.submitRead(new DBOperation<Integer>() {
+            @Override
+            public Integer run(ASQL asql) throws Exception {
+                return asql.readColumns(sql, columns, true, args);
+            }
+        }).onDone(callback);
+    }
+
+    private List<T> list(String sql, Object[] args) throws InstantiationException, IllegalAccessException {
+        DBCursor cursor = asql.rawQuery(sql, args);
+        long start = asql.getProfiler().start();
+        try {
+            ModelsInfoProcessor models = asql.getModels();
+            ColumnInfo[] columns = classInfo.mapCursorColumns(cursor);
+            List<T> result = new ArrayList<>(Math.max(cursor.getCount(), 0));
+            while (cursor.moveToNext()) {
+                result.add((T) models.instantiateObjectFromCursor(type, cursor, classInfo, columns));
+            }
+            asql.getProfiler().end(sql, start, result.size());
+            return result;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private T first(String sql, Object[] args) throws InstantiationException, IllegalAccessException {
+        DBCursor cursor = asql.rawQuery(sql, args);
+        long start = asql.getProfiler().start();
+        try {
+            T result = null;
+            if (cursor.moveToNext()) {
+                result = (T) asql.getModels().instantiateObjectFromCursor(type, cursor, classInfo,
+                        classInfo.mapCursorColumns(cursor));
+            }
+            asql.getProfiler().end(sql, start, result != null ? 1 : 0);
+            return result;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private long count(String sql, Object[] args) {
+        DBStatement statement = asql.acquireStatement(sql);
+        try {
+            BindArgs.bind(statement, args);
+            long start = asql.getProfiler().start();
+            long count = statement.simpleQueryForLong();
+            asql.getProfiler().end(sql, start, 1);
+            return count;
+        } finally {
+            asql.getStatementCache().release(sql, statement);
+        }
+    }
+
+    private String getFirstSql() {
+        if (limit >= 0) {
+            return getSql();
+        }
+        if (firstSql == null) {
+            firstSql = getSql() + " LIMIT 1";
+        }
+        return firstSql;
+    }
+
+    private String getCountSql() {
+        if (countSql == null) {
+            if (groupBy.isEmpty() && limit < 0) {
+                StringBuilder sb = new StringBuilder(classInfo.getCountSql());
+                appendWhere(sb);
+                countSql = sb.toString();
+            } else {
+                countSql = "SELECT count(*) FROM (" + getSql() + ")";
+            }
+        }
+        return countSql;
+    }
+
+    private void appendWhere(StringBuilder sb) {
+        if (where.length() > 0) {
+            sb.append(" WHERE ").append(where);
+        }
+    }
+
+    private void appendTail(StringBuilder sb) {
+        appendWhere(sb);
+        if (!groupBy.isEmpty()) {
+            sb.append(" GROUP BY ").append(TextUtils.join(",", groupBy));
+        }
+        if (!orderBy.isEmpty()) {
+            sb.append(" ORDER BY ").append(TextUtils.join(",", orderBy));
+        }
+        if (limit >= 0) {
+            sb.append(" LIMIT ?");
+            if (offset >= 0) {
+                sb.append(" OFFSET ?");
+            }
+        }
+    }
+
+    /**
+     * @return condition arguments followed by limit and offset
+     */
+    private Object[] boundArgs(boolean withLimit) {
+        if (args.length != whereArgsCount) {
+            throw new IllegalArgumentException("Query has " + whereArgsCount + " arguments but " + args.length + " given");
+        }
+        if (!withLimit || limit < 0) {
+            return args;
+        }
+        Object[] result = Arrays.copyOf(args, args.length + (offset >= 0 ? 2 : 1));
+        result[args.length] = (long) limit;
+        if (offset >= 0) {
+            result[args.length + 1] = (long) offset;
+        }
+        return result;
+    }
+
+    private Query<T> condition(String conjunction, String field, String operator) {
+        String op = operator.trim().toUpperCase(Locale.US).replaceAll("\\s+", " ");
+        if (!OPERATORS.contains(op)) {
+            throw new IllegalArgumentException("Unsupported operator " + operator);
+        }
+        if (where.length() > 0) {
+            where.append(conjunction);
+        }
+        where.append(column(field)).append(' ').append(op);
+        if (!op.startsWith("IS ")) {
+            where.append(" ?");
+            whereArgsCount++;
+        }
+        return changed();
+    }
+
+    private String getColumnsSql(ColumnBuffers columns) {
+        List<String> names = new ArrayList<>(columns.getNames().size());
+        for (String field : columns.getNames()) {
+            names.add(column(field));
+        }
+        StringBuilder sb = new StringBuilder("SELECT ").append(TextUtils.join(",", names))
+                .append(" FROM ").append(classInfo.tableName);
+        appendTail(sb);
+        return sb.toString();
+    }
+
+    private String column(String field) {
+        ColumnInfo column = classInfo.findColumn(field);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown field " + field + " of table " + classInfo.tableName);
+        }
+        return column.name;
+    }
+
+    private Query<T> changed() {
+        sql = null;
+        firstSql = null;
+        countSql = null;
+        return this;
+    }
+}
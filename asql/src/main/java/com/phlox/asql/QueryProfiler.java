@@ -0,0 +1,262 @@
+package com.phlox.asql;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Times statements executed through ASQL and collects statistics per SQL shape (SQL with literals
+ * replaced by "?"): executions count, rows count and latency histogram. Statements slower than
+ * threshold are logged. Optionally runs "EXPLAIN QUERY PLAN" on first execution of every shape and
+ * logs plans that scan whole table without index.
+ * Disabled by default, intended for development builds.
+ */
+public class QueryProfiler {
+    private static final String TAG = QueryProfiler.class.getSimpleName();
+    public static final long DEFAULT_SLOW_QUERY_THRESHOLD_MS = 50;
+    private static final int SHAPES_CACHE_SIZE = 256;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+
+    private final ASQL asql;
+    private volatile boolean enabled = false;
+    private volatile boolean explainQueryPlan = false;
+    private volatile long slowQueryThresholdNanos = DEFAULT_SLOW_QUERY_THRESHOLD_MS * 1000000;
+    private final Map<String, SqlStats> stats = new HashMap<>();
+    private final Map<String, String> shapes = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > SHAPES_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Statistics of one SQL shape. Latencies are kept in power of two buckets (by microseconds),
+     * so percentiles are upper bounds with up to 2x precision.
+     */
+    public static class SqlStats {
+        private static final int BUCKETS_COUNT = 32;
+        public final String sql;
+        private long count;
+        private long rows;
+        private long totalNanos;
+        private long maxNanos;
+        private final long[] buckets = new long[BUCKETS_COUNT];
+        private String fullScanPlan;
+
+        SqlStats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, int rows) {
+            count++;
+            if (rows > 0) {
+                this.rows += rows;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            long micros = nanos / 1000;
+            int bucket = micros <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+            buckets[Math.min(bucket, BUCKETS_COUNT - 1)]++;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * @return total count of returned (or affected) rows
+         */
+        public synchronized long getRows() {
+            return rows;
+        }
+
+        public synchronized double getAverageMs() {
+            return count == 0 ? 0 : totalNanos / (double) count / 1000000;
+        }
+
+        public synchronized double getMaxMs() {
+            return maxNanos / 1000000.0;
+        }
+
+        /**
+         * @param percentile from 0 to 100
+         */
+        public synchronized double getPercentileMs(double percentile) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= rank && buckets[i] != 0) {
+                    return Math.min((1L << i) / 1000.0, getMaxMs());
+                }
+            }
+            return getMaxMs();
+        }
+
+        /**
+         * @return plan detail of table scan without index found by EXPLAIN QUERY PLAN or null
+         */
+        public synchronized String getFullScanPlan() {
+            return fullScanPlan;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%s: count=%d rows=%d avg=%.2fms p50=%.2fms p99=%.2fms max=%.2fms%s",
+                    sql, count, rows, getAverageMs(), getPercentileMs(50), getPercentileMs(99), getMaxMs(),
+                    fullScanPlan != null ? " FULL SCAN: " + fullScanPlan : "");
+        }
+    }
+
+    QueryProfiler(ASQL asql) {
+        this.asql = asql;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setSlowQueryThresholdMs(long thresholdMs) {
+        slowQueryThresholdNanos = thresholdMs * 1000000;
+    }
+
+    /**
+     * Run "EXPLAIN QUERY PLAN" on first execution of every SQL shape and log table scans without index
+     */
+    public void setExplainQueryPlanEnabled(boolean explainQueryPlan) {
+        this.explainQueryPlan = explainQueryPlan;
+    }
+
+    /**
+     * @return snapshot of collected statistics ordered by total time spent, slowest first
+     */
+    public List<SqlStats> getStats() {
+        List<SqlStats> result;
+        synchronized (this) {
+            result = new ArrayList<>(stats.values());
+        }
+        final Map<SqlStats, Long> totals = new HashMap<>();
+        for (SqlStats s : result) {
+            synchronized (s) {
+                totals.put(s, s.totalNanos);
+            }
+        }
+        Collections.sort(result, new Comparator<SqlStats>() {
+            @Override
+            public int compare(SqlStats a, SqlStats b) {
+                long diff = totals.get(b) - totals.get(a);
+                return diff > 0 ? 1 : (diff < 0 ? -1 : 0);
+            }
+        });
+        return result;
+    }
+
+    public synchronized void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Logs all collected statistics
+     */
+    public void dump() {
+        for (SqlStats s : getStats()) {
+            Log.i(TAG, s.toString());
+        }
+    }
+
+    /**
+     * @return start time to pass to {@link #end(String, long, int)} or 0 if profiling disabled
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param rows count of returned or affected rows, -1 if unknown
+     */
+    void end(String sql, long startTime, int rows) {
+        if (startTime == 0) return;
+        long duration = System.nanoTime() - startTime;
+        SqlStats sqlStats;
+        boolean first = false;
+        synchronized (this) {
+            String shape = shapes.get(sql);
+            if (shape == null) {
+                shape = toShape(sql);
+                shapes.put(sql, shape);
+            }
+            sqlStats = stats.get(shape);
+            if (sqlStats == null) {
+                sqlStats = new SqlStats(shape);
+                stats.put(shape, sqlStats);
+                first = true;
+            }
+        }
+        synchronized (sqlStats) {
+            sqlStats.record(duration, rows);
+        }
+        if (duration >= slowQueryThresholdNanos) {
+            Log.w(TAG, String.format("Slow query (%.2fms, %d rows): %s", duration / 1000000.0, rows, sql));
+        }
+        if (first && explainQueryPlan) {
+            explain(sql, sqlStats);
+        }
+    }
+
+    static String toShape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        return NUMBER_LITERAL.matcher(shape).replaceAll("?");
+    }
+
+    private void explain(String sql, SqlStats sqlStats) {
+        String verb = sql.trim().split("\\s+", 2)[0].toUpperCase();
+        if (!verb.equals("SELECT") && !verb.equals("UPDATE") && !verb.equals("DELETE") && !verb.equals("WITH")) {
+            return;
+        }
+        try {
+            SQLiteDatabase db = asql.getOpenHelper().getReadableDatabase();
+            //parameters are left unbound (NULL), they do not change the plan
+            Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+            try {
+                int detailIndex = cursor.getColumnIndex("detail");
+                while (cursor.moveToNext()) {
+                    String detail = cursor.getString(detailIndex);
+                    if (isFullScan(detail)) {
+                        synchronized (sqlStats) {
+                            sqlStats.fullScanPlan = detail;
+                        }
+                        Log.w(TAG, "Query scans table without index (" + detail + "): " + sql);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Can not explain query plan: " + sql, e);
+        }
+    }
+
+    /**
+     * "SCAN TABLE t" in older SQLite versions, "SCAN t" since 3.36, with index usage it is
+     * "SCAN TABLE t USING [COVERING] INDEX i"
+     */
+    static boolean isFullScan(String detail) {
+        return detail != null && detail.startsWith("SCAN ") && !detail.contains(" INDEX ") &&
+                !detail.startsWith("SCAN SUBQUERY") && !detail.startsWith("SCAN CONSTANT");
+    }
+}
@@ -0,0 +1,90 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL with ":fieldName" placeholders parsed once into SQL with "?" parameters and ordered list of
+ * model columns to bind, so statement can be compiled once and executed with different values.
+ * Quoted literals and identifiers ('...', "...", `...`, [...]) are not scanned for placeholders.
+ * Placeholder that does not match any model column is rejected, because SQLite would count it
+ * as parameter too and values would be bound to wrong parameters.
+ */
+public class SQLTemplate {
+    public final String sql;
+    public final ColumnInfo[] bindings;
+
+    /**
+     * @throws IllegalArgumentException if SQL has placeholder without matching model column
+     */
+    public SQLTemplate(String namedParametersSql, ClassInfo classInfo) {
+        StringBuilder sb = new StringBuilder(namedParametersSql.length());
+        List<ColumnInfo> columns = new ArrayList<>();
+        int length = namedParametersSql.length();
+        int i = 0;
+        while (i < length) {
+            char c = namedParametersSql.charAt(i);
+            char closingQuote = closingQuote(c);
+            if (closingQuote != 0) {
+                int end = namedParametersSql.indexOf(closingQuote, i + 1);
+                end = end == -1 ? length : end + 1;
+                sb.append(namedParametersSql, i, end);
+                i = end;
+                continue;
+            }
+            if (c == ':' && i + 1 < length && isIdentifierStart(namedParametersSql.charAt(i + 1))) {
+                int end = i + 2;
+                while (end < length && isIdentifierPart(namedParametersSql.charAt(end))) {
+                    end++;
+                }
+                String name = namedParametersSql.substring(i + 1, end);
+                ColumnInfo column = classInfo.fields.get(name.toLowerCase());
+                if (column == null) {
+                    throw new IllegalArgumentException("Placeholder :" + name + " does not match any column of "
+                            + classInfo.tableName + " in: " + namedParametersSql);
+                }
+                sb.append('?');
+                columns.add(column);
+                i = end;
+                continue;
+            }
+            sb.append(c);
+            i++;
+        }
+        sql = sb.toString();
+        bindings = columns.toArray(new ColumnInfo[columns.size()]);
+    }
+
+    public void bind(Object values, DBStatement statement) {
+        for (int i = 0; i < bindings.length; i++) {
+            bindings[i].accessor.bind(values, statement, i + 1);
+        }
+    }
+
+    /**
+     * Doubled quote inside literal ('it''s') is handled as two adjacent literals
+     * @return closing quote of literal or identifier started by c or 0 if c does not start one
+     */
+    private static char closingQuote(char c) {
+        switch (c) {
+            case '\'':
+            case '"':
+            case '`':
+                return c;
+            case '[':
+                return ']';
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+}
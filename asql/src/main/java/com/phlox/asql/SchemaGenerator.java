@@ -0,0 +1,121 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBCursor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates DDL of model tables and indexes from {@link ClassInfo} and brings existing
+ * database schema up to date with models (see ASQL#createTables and ASQL#upgradeSchema or
+ * {@link ModelStore#createTables(Class[])} and {@link ModelStore#upgradeSchema(Class[])}).
+ */
+public class SchemaGenerator {
+
+    /**
+     * @return "CREATE TABLE IF NOT EXISTS ..." statement of model table
+     */
+    public static String getCreateTableSql(ClassInfo classInfo) {
+        if (classInfo.withoutRowId && classInfo.primaryKey == null) {
+            throw new IllegalStateException("WITHOUT ROWID table " + classInfo.tableName + " should have primary key");
+        }
+        List<String> definitions = new ArrayList<>(classInfo.columns.length);
+        for (ColumnInfo column : classInfo.columns) {
+            definitions.add(getColumnDefinition(classInfo, column));
+        }
+        return "CREATE TABLE IF NOT EXISTS " + classInfo.tableName + " (" + StringUtils.join(", ", definitions) + ")" +
+                (classInfo.withoutRowId ? " WITHOUT ROWID" : "");
+    }
+
+    /**
+     * @return "CREATE [UNIQUE] INDEX IF NOT EXISTS ..." statements of all declared indexes of model
+     */
+    public static List<String> getCreateIndexesSql(ClassInfo classInfo) {
+        List<String> result = new ArrayList<>(classInfo.indexes.size());
+        for (IndexInfo index : classInfo.indexes) {
+            result.add(getCreateIndexSql(classInfo, index));
+        }
+        return result;
+    }
+
+    public static String getCreateIndexSql(ClassInfo classInfo, IndexInfo index) {
+        return "CREATE " + (index.unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + index.name +
+                " ON " + classInfo.tableName + " (" + StringUtils.join(", ", index.columns) + ")";
+    }
+
+    /**
+     * Column definition, integer primary key of rowid table is declared as "INTEGER PRIMARY KEY"
+     * so it is alias of rowid instead of separate column with separate index
+     */
+    static String getColumnDefinition(ClassInfo classInfo, ColumnInfo column) {
+        String type = column.getSqlType();
+        StringBuilder sb = new StringBuilder(column.name);
+        if (!type.isEmpty()) {
+            sb.append(' ').append(type);
+        }
+        if (column.primaryKey) {
+            sb.append(" PRIMARY KEY");
+            if (column.autoIncrement && "INTEGER".equals(type) && !classInfo.withoutRowId) {
+                sb.append(" AUTOINCREMENT");
+            }
+            if (!"INTEGER".equals(type) || classInfo.withoutRowId) {
+                //only INTEGER PRIMARY KEY of rowid table is NOT NULL implicitly
+                sb.append(" NOT NULL");
+            }
+        }
+        return sb.toString();
+    }
+
+    static void createTable(DBConnection connection, ClassInfo classInfo) {
+        connection.execSQL(getCreateTableSql(classInfo));
+        for (String sql : getCreateIndexesSql(classInfo)) {
+            connection.execSQL(sql);
+        }
+    }
+
+    /**
+     * Creates table if it does not exist, otherwise adds missing columns and indexes.
+     * Existing columns and indexes are never changed or dropped.
+     * @return executed statements
+     */
+    static List<String> upgradeTable(DBConnection connection, ClassInfo classInfo) {
+        List<String> executed = new ArrayList<>();
+        Set<String> existingColumns = queryNames(connection, "PRAGMA table_info(" + classInfo.tableName + ")", "name");
+        if (existingColumns.isEmpty()) {
+            executed.add(getCreateTableSql(classInfo));
+        } else {
+            for (ColumnInfo column : classInfo.columns) {
+                if (!existingColumns.contains(column.name.toLowerCase()) && !column.primaryKey) {
+                    executed.add("ALTER TABLE " + classInfo.tableName + " ADD COLUMN " + getColumnDefinition(classInfo, column));
+                }
+            }
+        }
+        Set<String> existingIndexes = queryNames(connection, "PRAGMA index_list(" + classInfo.tableName + ")", "name");
+        for (IndexInfo index : classInfo.indexes) {
+            if (!existingIndexes.contains(index.name.toLowerCase())) {
+                executed.add(getCreateIndexSql(classInfo, index));
+            }
+        }
+        for (String sql : executed) {
+            connection.execSQL(sql);
+        }
+        return executed;
+    }
+
+    private static Set<String> queryNames(DBConnection connection, String pragma, String column) {
+        Set<String> names = new HashSet<>();
+        DBCursor cursor = connection.query(pragma, null);
+        try {
+            int index = cursor.getColumnIndex(column);
+            while (cursor.moveToNext()) {
+                names.add(cursor.getString(index).toLowerCase());
+            }
+        } finally {
+            cursor.close();
+        }
+        return names;
+    }
+}
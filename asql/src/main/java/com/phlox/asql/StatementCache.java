@@ -0,0 +1,111 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBStatement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of compiled statements of one database keyed by SQL text.
+ * Statement is checked out of cache by {@link #acquire(DBConnection, String)} and returned
+ * by {@link #release(String, DBStatement)}, so one statement is never used by two threads
+ * at once (concurrent caller just compiles another copy).
+ * Evicted statements are closed.
+ */
+public class StatementCache {
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    private final LinkedHashMap<String, DBStatement> statements;
+    private int maxSize;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private boolean closed = false;
+
+    public StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        statements = new LinkedHashMap<String, DBStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DBStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return cached statement for sql or new compiled one if there is no free statement in cache
+     */
+    public DBStatement acquire(DBConnection connection, String sql) {
+        synchronized (this) {
+            DBStatement statement = statements.remove(sql);
+            if (statement != null) {
+                hitCount++;
+                return statement;
+            }
+            missCount++;
+        }
+        return connection.compileStatement(sql);
+    }
+
+    /**
+     * Returns statement acquired by {@link #acquire(DBConnection, String)} back to cache
+     */
+    public synchronized void release(String sql, DBStatement statement) {
+        if (closed || maxSize <= 0) {
+            statement.close();
+            return;
+        }
+        statement.clearBindings();
+        DBStatement previous = statements.put(sql, statement);
+        if (previous != null && previous != statement) {
+            previous.close();
+        }
+    }
+
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        while (statements.size() > maxSize) {
+            Map.Entry<String, DBStatement> eldest = statements.entrySet().iterator().next();
+            eldest.getValue().close();
+            statements.remove(eldest.getKey());
+        }
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Closes all cached statements, cache still can be used after that
+     */
+    public synchronized void clear() {
+        for (DBStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Closes all cached statements, statements released after this call are closed immediately
+     */
+    public synchronized void close() {
+        clear();
+        closed = true;
+    }
+}
@@ -0,0 +1,71 @@
+package com.phlox.asql;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Replacements of android.text.TextUtils and android.database.DatabaseUtils helpers,
+ * so model mapping does not depend on Android classes
+ */
+final class StringUtils {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private StringUtils() {
+    }
+
+    static String join(CharSequence delimiter, Iterable<?> tokens) {
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (Object token : tokens) {
+            if (first) {
+                first = false;
+            } else {
+                sb.append(delimiter);
+            }
+            sb.append(token);
+        }
+        return sb.toString();
+    }
+
+    static String join(CharSequence delimiter, Object[] tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                sb.append(delimiter);
+            }
+            sb.append(tokens[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return SQL string literal, single quotes inside are doubled
+     */
+    static String sqlEscapeString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'') {
+                sb.append('\'');
+            }
+            sb.append(c);
+        }
+        sb.append('\'');
+        return sb.toString();
+    }
+
+    /**
+     * @return SQL blob literal X'...' of remaining bytes of buffer
+     */
+    static String sqlBlobLiteral(ByteBuffer value) {
+        ByteBuffer bytes = value.duplicate();
+        StringBuilder sb = new StringBuilder(bytes.remaining() * 2 + 3);
+        sb.append("X'");
+        while (bytes.hasRemaining()) {
+            int b = bytes.get() & 0xff;
+            sb.append(HEX_DIGITS[b >> 4]).append(HEX_DIGITS[b & 0xf]);
+        }
+        sb.append('\'');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+/**
+ * Maps field type that has no native column mapping (enums, dates, value objects) to SQLite value.
+ * Converter is resolved from {@link TypeConverters} once when model is parsed and kept in
+ * {@link ColumnInfo#converter}, so reading and binding rows call it directly.
+ * NULL is handled by ASQL: NULL column is read as null field and null field is bound as NULL,
+ * so {@link #read(DBCursor, int)} and {@link #bind(DBStatement, int, Object)} get only non-null values.
+ */
+public abstract class TypeConverter<T> {
+
+    /**
+     * @return declared type of column in generated schema: INTEGER, REAL, TEXT or BLOB
+     */
+    public abstract String getSqlType();
+
+    public abstract T read(DBCursor cursor, int index);
+
+    public abstract void bind(DBStatement statement, int index, T value);
+
+    /**
+     * @return value as SQL literal, used by {@link ModelsInfoProcessor#formatSQL(String, Object)}
+     */
+    public abstract String toSqlLiteral(T value);
+
+    /**
+     * @return value comparable by equals() that is not affected by later changes of field
+     * (copy or immutable representation of mutable values), used to detect changed columns
+     */
+    public Object snapshot(T value) {
+        return value;
+    }
+}
@@ -0,0 +1,419 @@
+package com.phlox.asql;
+
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of {@link TypeConverter}s for field types without native column mapping
+ * (primitives, String, byte[] and ByteBuffer are always mapped natively). Built-in converters:
+ * <ul>
+ * <li>boxed primitives - same columns as primitives, but NULL is read as null</li>
+ * <li>{@link Date} - INTEGER epoch milliseconds</li>
+ * <li>{@link UUID} - 16 bytes BLOB (most significant bits first)</li>
+ * <li>enums - TEXT constant name, register {@link #enumByOrdinal(Class)} for INTEGER ordinal instead</li>
+ * </ul>
+ * Converters are looked up only when model is parsed, so they should be registered before
+ * first use of models (before {@code ASQL.initDefaultInstance()} when models are registered there):
+ * <pre>
+ * TypeConverters.getDefault().register(Status.class, TypeConverters.enumByOrdinal(Status.class));
+ * </pre>
+ */
+public class TypeConverters {
+    /**
+     * Creates converters for families of types (like all enums)
+     */
+    public interface Factory {
+        /**
+         * @return converter for type or null if type is not supported by this factory
+         */
+        TypeConverter create(Class type);
+    }
+
+    private static final TypeConverters DEFAULT = new TypeConverters();
+
+    private final ConcurrentMap<Class, TypeConverter> converters = new ConcurrentHashMap<>();
+    private final List<Factory> factories = new CopyOnWriteArrayList<>();
+
+    public TypeConverters() {
+        converters.put(Long.class, new LongConverter());
+        converters.put(Integer.class, new IntegerConverter());
+        converters.put(Short.class, new ShortConverter());
+        converters.put(Byte.class, new ByteConverter());
+        converters.put(Character.class, new CharacterConverter());
+        converters.put(Double.class, new DoubleConverter());
+        converters.put(Float.class, new FloatConverter());
+        converters.put(Boolean.class, new BooleanConverter());
+        converters.put(Date.class, new DateConverter());
+        converters.put(UUID.class, new UUIDConverter());
+        factories.add(new EnumByNameFactory());
+    }
+
+    /**
+     * Registry used by models of ASQL and {@link ModelStore} instances
+     */
+    public static TypeConverters getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers converter for exactly this type (subclasses are not matched), replacing built-in one
+     */
+    public <T> TypeConverters register(Class<T> type, TypeConverter<T> converter) {
+        converters.put(type, converter);
+        return this;
+    }
+
+    /**
+     * Registers factory, it is asked before already registered factories
+     */
+    public TypeConverters register(Factory factory) {
+        factories.add(0, factory);
+        return this;
+    }
+
+    /**
+     * @return converter for type or null if there is no one
+     */
+    public TypeConverter find(Class type) {
+        TypeConverter converter = converters.get(type);
+        if (converter != null) return converter;
+        for (Factory factory : factories) {
+            converter = factory.create(type);
+            if (converter != null) {
+                TypeConverter existing = converters.putIfAbsent(type, converter);
+                return existing != null ? existing : converter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return converter that stores enum constants as TEXT names (default for enums),
+     * renaming of constants breaks already stored values
+     */
+    public static <E extends Enum<E>> TypeConverter<E> enumByName(Class<E> type) {
+        return new EnumByNameConverter<>(type);
+    }
+
+    /**
+     * @return converter that stores enum constants as INTEGER ordinals (compact and cheap to compare),
+     * reordering of constants breaks already stored values
+     */
+    public static <E extends Enum<E>> TypeConverter<E> enumByOrdinal(Class<E> type) {
+        return new EnumByOrdinalConverter<>(type);
+    }
+
+    private static class EnumByNameFactory implements Factory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public TypeConverter create(Class type) {
+            return type.isEnum() ? new EnumByNameConverter(type) : null;
+        }
+    }
+
+    private static class EnumByNameConverter<E extends Enum<E>> extends TypeConverter<E> {
+        private final Class<E> type;
+
+        EnumByNameConverter(Class<E> type) {
+            this.type = type;
+        }
+
+        @Override
+        public String getSqlType() {
+            return "TEXT";
+        }
+
+        @Override
+        public E read(DBCursor cursor, int index) {
+            return Enum.valueOf(type, cursor.getString(index));
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, E value) {
+            statement.bindString(index, value.name());
+        }
+
+        @Override
+        public String toSqlLiteral(E value) {
+            return StringUtils.sqlEscapeString(value.name());
+        }
+    }
+
+    private static class EnumByOrdinalConverter<E extends Enum<E>> extends TypeConverter<E> {
+        private final Class<E> type;
+        private final E[] constants;
+
+        EnumByOrdinalConverter(Class<E> type) {
+            this.type = type;
+            constants = type.getEnumConstants();
+        }
+
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public E read(DBCursor cursor, int index) {
+            int ordinal = cursor.getInt(index);
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new IllegalArgumentException("No constant with ordinal " + ordinal + " in " + type.getName());
+            }
+            return constants[ordinal];
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, E value) {
+            statement.bindLong(index, value.ordinal());
+        }
+
+        @Override
+        public String toSqlLiteral(E value) {
+            return Integer.toString(value.ordinal());
+        }
+    }
+
+    private static class LongConverter extends TypeConverter<Long> {
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public Long read(DBCursor cursor, int index) {
+            return cursor.getLong(index);
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Long value) {
+            statement.bindLong(index, value);
+        }
+
+        @Override
+        public String toSqlLiteral(Long value) {
+            return value.toString();
+        }
+    }
+
+    private static class IntegerConverter extends TypeConverter<Integer> {
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public Integer read(DBCursor cursor, int index) {
+            return cursor.getInt(index);
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Integer value) {
+            statement.bindLong(index, value);
+        }
+
+        @Override
+        public String toSqlLiteral(Integer value) {
+            return value.toString();
+        }
+    }
+
+    private static class ShortConverter extends TypeConverter<Short> {
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public Short read(DBCursor cursor, int index) {
+            return cursor.getShort(index);
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Short value) {
+            statement.bindLong(index, value);
+        }
+
+        @Override
+        public String toSqlLiteral(Short value) {
+            return value.toString();
+        }
+    }
+
+    private static class ByteConverter extends TypeConverter<Byte> {
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public Byte read(DBCursor cursor, int index) {
+            return (byte) cursor.getShort(index);
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Byte value) {
+            statement.bindLong(index, value);
+        }
+
+        @Override
+        public String toSqlLiteral(Byte value) {
+            return value.toString();
+        }
+    }
+
+    private static class CharacterConverter extends TypeConverter<Character> {
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public Character read(DBCursor cursor, int index) {
+            return (char) cursor.getInt(index);
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Character value) {
+            statement.bindLong(index, value);
+        }
+
+        @Override
+        public String toSqlLiteral(Character value) {
+            return Integer.toString(value);
+        }
+    }
+
+    private static class DoubleConverter extends TypeConverter<Double> {
+        @Override
+        public String getSqlType() {
+            return "REAL";
+        }
+
+        @Override
+        public Double read(DBCursor cursor, int index) {
+            return cursor.getDouble(index);
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Double value) {
+            statement.bindDouble(index, value);
+        }
+
+        @Override
+        public String toSqlLiteral(Double value) {
+            return value.toString();
+        }
+    }
+
+    private static class FloatConverter extends TypeConverter<Float> {
+        @Override
+        public String getSqlType() {
+            return "REAL";
+        }
+
+        @Override
+        public Float read(DBCursor cursor, int index) {
+            return cursor.getFloat(index);
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Float value) {
+            statement.bindDouble(index, value);
+        }
+
+        @Override
+        public String toSqlLiteral(Float value) {
+            return Double.toString(value);
+        }
+    }
+
+    private static class BooleanConverter extends TypeConverter<Boolean> {
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public Boolean read(DBCursor cursor, int index) {
+            return cursor.getInt(index) != 0;
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Boolean value) {
+            statement.bindLong(index, value ? 1 : 0);
+        }
+
+        @Override
+        public String toSqlLiteral(Boolean value) {
+            return value ? "1" : "0";
+        }
+    }
+
+    private static class DateConverter extends TypeConverter<Date> {
+        @Override
+        public String getSqlType() {
+            return "INTEGER";
+        }
+
+        @Override
+        public Date read(DBCursor cursor, int index) {
+            return new Date(cursor.getLong(index));
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, Date value) {
+            statement.bindLong(index, value.getTime());
+        }
+
+        @Override
+        public String toSqlLiteral(Date value) {
+            return Long.toString(value.getTime());
+        }
+
+        @Override
+        public Object snapshot(Date value) {
+            //Date is mutable
+            return value.getTime();
+        }
+    }
+
+    private static class UUIDConverter extends TypeConverter<UUID> {
+        @Override
+        public String getSqlType() {
+            return "BLOB";
+        }
+
+        @Override
+        public UUID read(DBCursor cursor, int index) {
+            byte[] bytes = cursor.getBlob(index);
+            if (bytes.length != 16) {
+                throw new IllegalArgumentException("UUID should be 16 bytes long, but it is " + bytes.length);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+
+        @Override
+        public void bind(DBStatement statement, int index, UUID value) {
+            statement.bindBlob(index, toBytes(value));
+        }
+
+        @Override
+        public String toSqlLiteral(UUID value) {
+            return StringUtils.sqlBlobLiteral(ByteBuffer.wrap(toBytes(value)));
+        }
+
+        private static byte[] toBytes(UUID value) {
+            return ByteBuffer.allocate(16).putLong(value.getMostSignificantBits())
+                    .putLong(value.getLeastSignificantBits()).array();
+        }
+    }
+}
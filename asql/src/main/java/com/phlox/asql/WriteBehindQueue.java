@@ -0,0 +1,239 @@
+package com.phlox.asql;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.phlox.asql.driver.DBConnection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects async saves and deletes and writes them in one transaction after short delay or
+ * when too many writes are pending. Repeated writes of the same row (same primary key, or the same
+ * object for models without integer key) are coalesced, only the last one is executed.
+ * Callbacks of coalesced writes receive result of the executed write: row id (or null if row was
+ * deleted) for saves and deleted rows count (or 0 if row was saved) for deletes.
+ * Call {@link #flush()} before shutdown to not lose pending writes.
+ */
+public class WriteBehindQueue {
+    public static final long DEFAULT_FLUSH_DELAY_MS = 300;
+    public static final int DEFAULT_MAX_PENDING = 500;
+
+    private final ASQL asql;
+    private final long flushDelayMs;
+    private final int maxPending;
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private Map<Object, PendingWrite> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    /**
+     * Held from taking of batch until it is written, so batches are written in the order they were
+     * taken even when scheduled flush and {@link #flush()} run concurrently
+     */
+    private final Object flushLock = new Object();
+
+    private static class PendingWrite {
+        Object entity;
+        boolean delete;
+        List<ASQL.ResultCallback<Long>> saveCallbacks = new ArrayList<>(1);
+        List<ASQL.ResultCallback<Integer>> deleteCallbacks = new ArrayList<>(1);
+        Long savedRowId;
+        int deletedCount;
+        Exception exception;
+    }
+
+    /**
+     * Identity of row for models with integer primary key
+     */
+    private static class RowKey {
+        final ClassInfo classInfo;
+        final long key;
+
+        RowKey(ClassInfo classInfo, long key) {
+            this.classInfo = classInfo;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RowKey)) return false;
+            RowKey other = (RowKey) o;
+            return classInfo == other.classInfo && key == other.key;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(classInfo) + (int) (key ^ (key >>> 32));
+        }
+    }
+
+    /**
+     * Identity of object for models without integer primary key or with not yet generated one
+     */
+    private static class ObjectKey {
+        final Object entity;
+
+        ObjectKey(Object entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ObjectKey && ((ObjectKey) o).entity == entity;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(entity);
+        }
+    }
+
+    public WriteBehindQueue(ASQL asql) {
+        this(asql, DEFAULT_FLUSH_DELAY_MS, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param flushDelayMs how long writes are collected before they are written
+     * @param maxPending count of pending writes that triggers immediate flush
+     */
+    public WriteBehindQueue(ASQL asql, long flushDelayMs, int maxPending) {
+        this.asql = asql;
+        this.flushDelayMs = flushDelayMs;
+        this.maxPending = maxPending;
+    }
+
+    public void save(Object entity, ASQL.ResultCallback<Long> callback) {
+        enqueue(entity, false, callback, null);
+    }
+
+    public void delete(Object entity, ASQL.ResultCallback<Integer> callback) {
+        enqueue(entity, true, null, callback);
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes all pending changes on calling thread and fires their callbacks. Waits for batch that
+     * is being written by scheduled flush, so it should not be called inside of transaction.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Object, PendingWrite> writes;
+            synchronized (this) {
+                writes = pending;
+                pending = new LinkedHashMap<>();
+            }
+            if (writes.isEmpty()) return;
+            write(writes);
+            deliverResults(writes);
+        }
+    }
+
+    private void enqueue(Object entity, boolean delete, ASQL.ResultCallback<Long> saveCallback,
+                         ASQL.ResultCallback<Integer> deleteCallback) {
+        Object key = rowKey(entity);
+        synchronized (this) {
+            PendingWrite write = pending.get(key);
+            if (write == null) {
+                write = new PendingWrite();
+                pending.put(key, write);
+            }
+            write.entity = entity;
+            write.delete = delete;
+            if (saveCallback != null) write.saveCallbacks.add(saveCallback);
+            if (deleteCallback != null) write.deleteCallbacks.add(deleteCallback);
+            boolean flushNow = pending.size() >= maxPending;
+            if (flushNow || !flushScheduled) {
+                flushScheduled = true;
+                if (flushNow) {
+                    mainThreadHandler.removeCallbacks(scheduleFlushRunnable);
+                    scheduleFlushRunnable.run();
+                } else {
+                    mainThreadHandler.postDelayed(scheduleFlushRunnable, flushDelayMs);
+                }
+            }
+        }
+    }
+
+    private Object rowKey(Object entity) {
+        ClassInfo classInfo = asql.getModels().getClassInfo(entity.getClass());
+        if (classInfo.primaryKey != null) {
+            Class keyType = classInfo.primaryKey.field.getType();
+            if (keyType.equals(long.class) || keyType.equals(int.class) || keyType.equals(short.class)) {
+                try {
+                    long key = classInfo.getPrimaryKeyValue(entity);
+                    if (key != 0) {
+                        return new RowKey(classInfo, key);
+                    }
+                } catch (IllegalAccessException e) {
+                    //fall back to object identity
+                }
+            }
+        }
+        return new ObjectKey(entity);
+    }
+
+    private final Runnable scheduleFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            asql.getWriteExecutor().execute(flushRunnable);
+        }
+    };
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (WriteBehindQueue.this) {
+                flushScheduled = false;
+            }
+            flush();
+        }
+    };
+
+    private void write(Map<Object, PendingWrite> writes) {
+        DBConnection db = asql.getConnection();
+        db.beginTransaction();
+        try {
+            for (PendingWrite write : writes.values()) {
+                try {
+                    if (write.delete) {
+                        write.deletedCount = asql.delete(write.entity);
+                    } else {
+                        write.savedRowId = asql.save(write.entity);
+                    }
+                } catch (Exception e) {
+                    write.exception = e;
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (RuntimeException e) {
+            for (PendingWrite write : writes.values()) {
+                write.exception = e;
+            }
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void deliverResults(final Map<Object, PendingWrite> writes) {
+        mainThreadHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (PendingWrite write : writes.values()) {
+                    Long savedRowId = write.delete ? null : write.savedRowId;
+                    int deletedCount = write.delete ? write.deletedCount : 0;
+                    for (ASQL.ResultCallback<Long> callback : write.saveCallbacks) {
+                        callback.onDone(savedRowId, write.exception);
+                    }
+                    for (ASQL.ResultCallback<Integer> callback : write.deleteCallbacks) {
+                        callback.onDone(deletedCount, write.exception);
+                    }
+                }
+            }
+        });
+    }
+}
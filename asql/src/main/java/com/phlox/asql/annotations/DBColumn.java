@@ -13,4 +13,17 @@ import java.lang.annotation.Target;
 public @interface DBColumn {
     String name() default "";
     boolean primaryKey() default false;
+    /**
+     * Create index of this column in generated schema (see {@link com.phlox.asql.ASQL#createTables})
+     */
+    boolean indexed() default false;
+    /**
+     * Create unique index of this column in generated schema
+     */
+    boolean unique() default false;
+    /**
+     * Declare integer primary key as AUTOINCREMENT, so keys of deleted rows are never reused.
+     * By default integer primary key is declared as "INTEGER PRIMARY KEY" alias of rowid.
+     */
+    boolean autoIncrement() default false;
 }
@@ -0,0 +1,22 @@
+package com.phlox.asql.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Index of generated schema declared in {@link DBTable#indexes()}
+ */
+@Target(value = {})
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface DBIndex {
+    /**
+     * Index name, by default "table_column1_column2_idx"
+     */
+    String name() default "";
+    /**
+     * Names of fields or columns in index order
+     */
+    String[] columns();
+    boolean unique() default false;
+}
@@ -13,4 +13,32 @@ import java.lang.annotation.Target;
 public @interface DBTable {
     String name() default "";
     MarkMode markMode() default MarkMode.ALL_EXCEPT_IGNORED;
+    /**
+     * Max count of entities kept in entity cache (identity map) of this model, 0 to disable cache.
+     * Only models with integer primary key can be cached.
+     */
+    int cacheSize() default 0;
+    /**
+     * Keep cached entities by soft references, so they can be collected under memory pressure
+     */
+    boolean softCache() default false;
+    /**
+     * Remember column values of loaded and saved objects, so save of already stored object updates
+     * only changed columns instead of replacing whole row. Only models with integer primary key can be tracked.
+     */
+    boolean trackChanges() default false;
+    /**
+     * Class maps only part of table columns (for example list item without large text body),
+     * queries of it select only mapped columns instead of "SELECT *". Projections can not be saved.
+     */
+    boolean projection() default false;
+    /**
+     * Composite (or named) indexes of generated schema
+     */
+    DBIndex[] indexes() default {};
+    /**
+     * Generate table as WITHOUT ROWID (rows are stored in primary key b-tree, requires primary key,
+     * primary key values are not generated automatically). Needs SQLite 3.8.2+ (Android 5.0+).
+     */
+    boolean withoutRowId() default false;
 }
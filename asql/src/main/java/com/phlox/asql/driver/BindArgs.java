@@ -0,0 +1,35 @@
+package com.phlox.asql.driver;
+
+/**
+ * Binding of query arguments by their types, shared by drivers and ASQL so cursor queries and
+ * compiled statements bind the same values the same way
+ */
+public final class BindArgs {
+    private BindArgs() {
+    }
+
+    /**
+     * Binds values by their types: Long, Integer, Short, Byte and Boolean as INTEGER,
+     * Double and Float as REAL, byte[] as BLOB, null as NULL and anything else (including other
+     * Number types like BigDecimal) as string
+     */
+    public static void bind(DBStatement statement, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            Object value = args[i];
+            int index = i + 1;
+            if (value == null) {
+                statement.bindNull(index);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                statement.bindLong(index, ((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                statement.bindDouble(index, ((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                statement.bindLong(index, (Boolean) value ? 1 : 0);
+            } else if (value instanceof byte[]) {
+                statement.bindBlob(index, (byte[]) value);
+            } else {
+                statement.bindString(index, value.toString());
+            }
+        }
+    }
+}
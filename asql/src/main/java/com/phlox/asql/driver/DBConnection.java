@@ -0,0 +1,36 @@
+package com.phlox.asql.driver;
+
+import java.io.Closeable;
+
+/**
+ * Connection to database. Transactions are nested as in Android SQLiteDatabase: whole transaction
+ * is committed by outermost {@link #endTransaction()} only if all nested levels were marked successful.
+ */
+public interface DBConnection extends Closeable {
+
+    DBStatement compileStatement(String sql);
+
+    /**
+     * Runs query with arguments bound by their types (see {@link BindArgs#bind(DBStatement, Object[])}):
+     * Long, Integer, Short, Byte and Boolean as INTEGER, Double and Float as REAL, byte[] as BLOB,
+     * null as NULL and anything else as string
+     * @param args arguments of "?" placeholders or null
+     */
+    DBCursor query(String sql, Object[] args);
+
+    /**
+     * Executes single statement that does not return rows
+     */
+    void execSQL(String sql);
+
+    void beginTransaction();
+
+    void setTransactionSuccessful();
+
+    void endTransaction();
+
+    boolean inTransaction();
+
+    @Override
+    void close();
+}
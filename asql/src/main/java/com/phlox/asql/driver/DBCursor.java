@@ -0,0 +1,59 @@
+package com.phlox.asql.driver;
+
+import java.io.Closeable;
+
+/**
+ * Query result read row by row. Columns are addressed by index, values are converted between
+ * types as SQLite does. Cursors of some drivers are forward only: they return -1 from
+ * {@link #getCount()} and support only {@link #moveToNext()}.
+ */
+public interface DBCursor extends Closeable {
+    int FIELD_TYPE_NULL = 0;
+    int FIELD_TYPE_INTEGER = 1;
+    int FIELD_TYPE_FLOAT = 2;
+    int FIELD_TYPE_STRING = 3;
+    int FIELD_TYPE_BLOB = 4;
+
+    /**
+     * @return count of rows or -1 if it is unknown until all rows are read
+     */
+    int getCount();
+
+    int getPosition();
+
+    boolean moveToNext();
+
+    boolean moveToPosition(int position);
+
+    boolean moveToLast();
+
+    String[] getColumnNames();
+
+    /**
+     * @return index of column by case insensitive name or -1
+     */
+    int getColumnIndex(String columnName);
+
+    int getType(int columnIndex);
+
+    boolean isNull(int columnIndex);
+
+    String getString(int columnIndex);
+
+    short getShort(int columnIndex);
+
+    int getInt(int columnIndex);
+
+    long getLong(int columnIndex);
+
+    float getFloat(int columnIndex);
+
+    double getDouble(int columnIndex);
+
+    byte[] getBlob(int columnIndex);
+
+    boolean isClosed();
+
+    @Override
+    void close();
+}
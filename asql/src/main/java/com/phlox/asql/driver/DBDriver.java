@@ -0,0 +1,16 @@
+package com.phlox.asql.driver;
+
+/**
+ * Storage backend of ASQL. Model mapping ({@link com.phlox.asql.ClassInfo},
+ * {@link com.phlox.asql.ModelsInfoProcessor}, generated mappers) works only through driver
+ * interfaces, so it is not tied to Android SQLite API: Android implementation is used by
+ * {@link com.phlox.asql.ASQL}, sqlite-jdbc implementation (asql-jdbc module) runs on desktop JVM.
+ * Android driver throws android.database.SQLException on errors, other drivers throw {@link DBException}.
+ */
+public interface DBDriver {
+
+    /**
+     * Opens (creating if needed) SQLite database file
+     */
+    DBConnection open(String path);
+}
@@ -0,0 +1,14 @@
+package com.phlox.asql.driver;
+
+/**
+ * Database error of drivers that have no own unchecked exception type
+ */
+public class DBException extends RuntimeException {
+    public DBException(String message) {
+        super(message);
+    }
+
+    public DBException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,42 @@
+package com.phlox.asql.driver;
+
+import java.io.Closeable;
+
+/**
+ * Compiled statement, bindings are kept until {@link #clearBindings()} so statement can be
+ * executed again with some of values changed. Not thread safe.
+ */
+public interface DBStatement extends Closeable {
+
+    void bindNull(int index);
+
+    void bindLong(int index, long value);
+
+    void bindDouble(int index, double value);
+
+    void bindString(int index, String value);
+
+    void bindBlob(int index, byte[] value);
+
+    void clearBindings();
+
+    void execute();
+
+    /**
+     * @return count of changed rows
+     */
+    int executeUpdateDelete();
+
+    /**
+     * @return row id of inserted row or -1 if nothing was inserted
+     */
+    long executeInsert();
+
+    /**
+     * @return value of first column of first row, driver exception is thrown if there are no rows
+     */
+    long simpleQueryForLong();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,95 @@
+package com.phlox.asql.driver.android;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteTransactionListener;
+
+import com.phlox.asql.driver.BindArgs;
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBCursor;
+import com.phlox.asql.driver.DBStatement;
+
+public class AndroidConnection implements DBConnection {
+    private final SQLiteDatabase db;
+    private final SQLiteTransactionListener transactionListener;
+
+    public AndroidConnection(SQLiteDatabase db) {
+        this(db, null);
+    }
+
+    /**
+     * @param transactionListener listener of every transaction level started by
+     *                            {@link #beginTransaction()} (nested levels included) or null
+     */
+    public AndroidConnection(SQLiteDatabase db, SQLiteTransactionListener transactionListener) {
+        this.db = db;
+        this.transactionListener = transactionListener;
+    }
+
+    public SQLiteDatabase getDatabase() {
+        return db;
+    }
+
+    @Override
+    public DBStatement compileStatement(String sql) {
+        return new AndroidStatement(db.compileStatement(sql));
+    }
+
+    /**
+     * Binds arguments by their types through cursor factory instead of binding all of them
+     * as strings like {@link SQLiteDatabase#rawQuery(String, String[])} does
+     */
+    @Override
+    public DBCursor query(String sql, final Object[] args) {
+        Cursor cursor;
+        if (args == null || args.length == 0) {
+            cursor = db.rawQuery(sql, null);
+        } else {
+            cursor = db.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+                @Override
+                public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery, String editTable, SQLiteQuery query) {
+                    BindArgs.bind(new AndroidStatement(query), args);
+                    return new SQLiteCursor(masterQuery, editTable, query);
+                }
+            }, sql, null, null);
+        }
+        return new AndroidCursor(cursor);
+    }
+
+    @Override
+    public void execSQL(String sql) {
+        db.execSQL(sql);
+    }
+
+    @Override
+    public void beginTransaction() {
+        if (transactionListener != null) {
+            db.beginTransactionWithListener(transactionListener);
+        } else {
+            db.beginTransaction();
+        }
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        db.setTransactionSuccessful();
+    }
+
+    @Override
+    public void endTransaction() {
+        db.endTransaction();
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return db.inTransaction();
+    }
+
+    @Override
+    public void close() {
+        db.close();
+    }
+}
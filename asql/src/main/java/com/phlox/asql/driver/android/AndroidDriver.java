@@ -0,0 +1,17 @@
+package com.phlox.asql.driver.android;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.DBDriver;
+
+/**
+ * Default driver over Android SQLite API
+ */
+public class AndroidDriver implements DBDriver {
+
+    @Override
+    public DBConnection open(String path) {
+        return new AndroidConnection(SQLiteDatabase.openOrCreateDatabase(path, null));
+    }
+}
@@ -0,0 +1,91 @@
+package com.phlox.asql.driver.android;
+
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteStatement;
+
+import com.phlox.asql.driver.DBStatement;
+
+public class AndroidStatement implements DBStatement {
+    private final SQLiteProgram program;
+    private final SQLiteStatement statement;
+
+    public AndroidStatement(SQLiteStatement statement) {
+        this.program = statement;
+        this.statement = statement;
+    }
+
+    /**
+     * Binds arguments of cursor query (see {@link AndroidConnection#query(String, Object[])}),
+     * such statement can not be executed
+     */
+    AndroidStatement(SQLiteProgram query) {
+        this.program = query;
+        this.statement = null;
+    }
+
+    public SQLiteStatement getStatement() {
+        return statement;
+    }
+
+    @Override
+    public void bindNull(int index) {
+        program.bindNull(index);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        program.bindLong(index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        program.bindDouble(index, value);
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        program.bindString(index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        program.bindBlob(index, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        program.clearBindings();
+    }
+
+    @Override
+    public void execute() {
+        executable().execute();
+    }
+
+    @Override
+    public int executeUpdateDelete() {
+        return executable().executeUpdateDelete();
+    }
+
+    @Override
+    public long executeInsert() {
+        return executable().executeInsert();
+    }
+
+    @Override
+    public long simpleQueryForLong() {
+        return executable().simpleQueryForLong();
+    }
+
+    @Override
+    public void close() {
+        program.close();
+    }
+
+    private SQLiteStatement executable() {
+        if (statement == null) {
+            throw new IllegalStateException("Query arguments binding can not be executed");
+        }
+        return statement;
+    }
+}
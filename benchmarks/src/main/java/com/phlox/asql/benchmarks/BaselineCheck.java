@@ -0,0 +1,188 @@
+package com.phlox.asql.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JMH CSV results with committed baseline and fails if any benchmark became slower
+ * than allowed threshold. Slowdown counts as regression only if 99.9% confidence intervals of
+ * result and baseline do not overlap, so noise of wide intervals does not fail the check by chance.
+ * Benchmarks with error wider than threshold are marked NOISY: check can not detect their
+ * regressions reliably, rerun them with more forks or iterations.
+ * Baseline entries without result are reported as MISSING (expected when only some benchmarks run).
+ * <pre>
+ * BaselineCheck &lt;baseline.csv&gt; &lt;result.csv&gt; [threshold percent, 25 by default]
+ * </pre>
+ */
+public class BaselineCheck {
+    private static final int DEFAULT_THRESHOLD_PERCENT = 25;
+
+    static class Result {
+        final String key;
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String key, String mode, double score, double error, String unit) {
+            this.key = key;
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * @return how much slower this result is than baseline, percent (negative if faster)
+         */
+        double slowdownPercent(Result baseline) {
+            return slowdownPercent(score, baseline.score);
+        }
+
+        /**
+         * @return slowdown between closest ends of confidence intervals of this result and baseline,
+         * percent (0 or less if intervals overlap)
+         */
+        double intervalSlowdownPercent(Result baseline) {
+            if (higherIsBetter()) {
+                return slowdownPercent(score + error, Math.max(baseline.score - baseline.error, 0));
+            }
+            return slowdownPercent(Math.max(score - error, 0), baseline.score + baseline.error);
+        }
+
+        double errorPercent() {
+            return score == 0 ? 0 : error / score * 100;
+        }
+
+        private boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+
+        private double slowdownPercent(double score, double baselineScore) {
+            if (higherIsBetter()) {
+                return (baselineScore / score - 1) * 100;
+            }
+            return (score / baselineScore - 1) * 100;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCheck <baseline.csv> <result.csv> [threshold percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> results = read(args[1]);
+        int regressions = 0;
+        int missing = 0;
+        int noisyCount = 0;
+        for (Result base : baseline.values()) {
+            if (!results.containsKey(base.key)) {
+                missing++;
+                System.out.println(String.format("MISSING    %s: baseline %.3f %s", base.key, base.score, base.unit));
+            }
+        }
+        for (Result result : results.values()) {
+            Result base = baseline.get(result.key);
+            if (base == null) {
+                System.out.println(String.format("NEW        %s: %.3f %s", result.key, result.score, result.unit));
+                continue;
+            }
+            if (!base.unit.equals(result.unit) || !base.mode.equals(result.mode)) {
+                System.out.println(String.format("CHANGED    %s: %s %s, baseline in %s %s",
+                        result.key, result.mode, result.unit, base.mode, base.unit));
+                continue;
+            }
+            double slowdown = result.slowdownPercent(base);
+            boolean regressed = slowdown > threshold && result.intervalSlowdownPercent(base) > 0;
+            if (regressed) {
+                regressions++;
+            }
+            boolean noisy = result.errorPercent() > threshold || base.errorPercent() > threshold;
+            if (noisy) {
+                noisyCount++;
+            }
+            System.out.println(String.format("%-10s %s: %.3f +- %.1f%% %s, baseline %.3f +- %.1f%% (%+.1f%%)",
+                    regressed ? "REGRESSION" : noisy ? "NOISY" : "OK", result.key, result.score, result.errorPercent(),
+                    result.unit, base.score, base.errorPercent(), slowdown));
+        }
+        if (noisyCount > 0) {
+            System.out.println(noisyCount + " benchmark(s) have error wider than " + threshold + "%, their regressions may be missed");
+        }
+        if (missing > 0) {
+            System.out.println(missing + " baseline benchmark(s) have no result");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) are more than " + threshold + "% slower than baseline");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads results keyed by benchmark name and parameters
+     */
+    static Map<String, Result> read(String path) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), Charset.forName("UTF-8")));
+        try {
+            List<String> header = parseLine(reader.readLine());
+            int benchmarkIndex = header.indexOf("Benchmark");
+            int modeIndex = header.indexOf("Mode");
+            int scoreIndex = header.indexOf("Score");
+            int errorIndex = header.indexOf("Score Error (99.9%)");
+            int unitIndex = header.indexOf("Unit");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                List<String> values = parseLine(line);
+                StringBuilder key = new StringBuilder(values.get(benchmarkIndex));
+                for (int i = 0; i < header.size(); i++) {
+                    if (header.get(i).startsWith("Param: ") && i < values.size() && !values.get(i).isEmpty()) {
+                        key.append(' ').append(header.get(i).substring("Param: ".length())).append('=').append(values.get(i));
+                    }
+                }
+                results.put(key.toString(), new Result(key.toString(), values.get(modeIndex),
+                        Double.parseDouble(values.get(scoreIndex)), parseError(values, errorIndex), values.get(unitIndex)));
+            }
+        } finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    /**
+     * @return score error or 0 if it is unknown (NaN for single measurement)
+     */
+    private static double parseError(List<String> values, int errorIndex) {
+        if (errorIndex == -1) return 0;
+        double error = Double.parseDouble(values.get(errorIndex));
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
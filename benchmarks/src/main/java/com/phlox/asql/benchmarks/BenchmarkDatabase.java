@@ -0,0 +1,54 @@
+package com.phlox.asql.benchmarks;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.phlox.asql.ASQL;
+import com.phlox.asql.benchmarks.model.Message;
+import com.phlox.asql.benchmarks.model.Note;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * File database in temporary directory with tables of benchmark models
+ */
+public class BenchmarkDatabase {
+    private static final String NAME = "benchmark.db";
+
+    public final ASQL asql;
+    private final File dir;
+
+    public BenchmarkDatabase() throws IOException {
+        dir = Files.createTempDirectory("asql-benchmark").toFile();
+        asql = new ASQL(new Context(dir), NAME, 1, new ASQL.BaseCallback() {
+            @Override
+            public void onCreate(ASQL asql, SQLiteDatabase db) {
+                asql.createTables(db, Note.class, Message.class);
+            }
+
+            @Override
+            public ExecutorService getExecutorService() {
+                //daemon thread, so forked benchmark VM exits without waiting for it
+                return Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "asql");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+        });
+    }
+
+    public void close() {
+        asql.close();
+        new Context(dir).deleteDatabase(NAME);
+        dir.delete();
+    }
+}
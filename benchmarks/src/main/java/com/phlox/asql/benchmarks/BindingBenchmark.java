@@ -0,0 +1,74 @@
+package com.phlox.asql.benchmarks;
+
+import com.phlox.asql.ClassInfo;
+import com.phlox.asql.ColumnInfo;
+import com.phlox.asql.ModelsInfoProcessor;
+import com.phlox.asql.benchmarks.model.Note;
+import com.phlox.asql.benchmarks.model.ReflectionNote;
+import com.phlox.asql.driver.DBStatement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding all columns of one object to compiled insert statement (without executing it):
+ * legacy per field {@link ModelsInfoProcessor#bindFieldValueToPreparedStatement} against
+ * column accessors used by save.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class BindingBenchmark {
+    @Param({"mapper", "reflection"})
+    public String model;
+
+    private BenchmarkDatabase database;
+    private ClassInfo classInfo;
+    private Object entity;
+    private DBStatement statement;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase();
+        boolean mapper = model.equals("mapper");
+        entity = mapper ? Note.sample(1) : ReflectionNote.sample(1);
+        classInfo = new ModelsInfoProcessor().getClassInfo(entity.getClass());
+        statement = database.asql.getConnection().compileStatement(classInfo.getInsertSql());
+    }
+
+    @TearDown
+    public void tearDown() {
+        statement.close();
+        database.close();
+    }
+
+    @Benchmark
+    public DBStatement bindFieldValueToPreparedStatement() {
+        ColumnInfo[] columns = classInfo.insertColumns;
+        for (int i = 0; i < columns.length; i++) {
+            ModelsInfoProcessor.bindFieldValueToPreparedStatement(columns[i].field, entity, i + 1, statement);
+        }
+        return statement;
+    }
+
+    @Benchmark
+    public DBStatement bindInsertValues() {
+        classInfo.bindInsertValues(entity, statement);
+        return statement;
+    }
+}
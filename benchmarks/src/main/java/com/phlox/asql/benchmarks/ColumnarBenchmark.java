@@ -0,0 +1,75 @@
+package com.phlox.asql.benchmarks;
+
+import com.phlox.asql.ColumnBuffers;
+import com.phlox.asql.DoubleArray;
+import com.phlox.asql.LongArray;
+import com.phlox.asql.Query;
+import com.phlox.asql.benchmarks.model.Fixtures;
+import com.phlox.asql.benchmarks.model.Note;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading two numeric columns of all rows (time series): full objects by query list() with values
+ * copied to arrays after that, vs readColumns() into reused primitive buffers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ColumnarBenchmark {
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private Query<Note> query;
+    private LongArray times = new LongArray();
+    private DoubleArray ratings = new DoubleArray();
+    private ColumnBuffers columns = new ColumnBuffers().add("modificationTime", times).add("rating", ratings);
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase();
+        database.asql.saveAll(Fixtures.notes(rows));
+        query = database.asql.query(Note.class).orderBy("modificationTime", false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public double[] listObjects() throws Exception {
+        List<Note> notes = query.list();
+        long[] timesArray = new long[notes.size()];
+        double[] ratingsArray = new double[notes.size()];
+        for (int i = 0; i < notes.size(); i++) {
+            timesArray[i] = notes.get(i).modificationTime;
+            ratingsArray[i] = notes.get(i).rating;
+        }
+        return ratingsArray;
+    }
+
+    @Benchmark
+    public DoubleArray readColumns() {
+        query.readColumns(columns);
+        return ratings;
+    }
+}
@@ -0,0 +1,66 @@
+package com.phlox.asql.benchmarks;
+
+import com.phlox.asql.benchmarks.model.Fixtures;
+import com.phlox.asql.benchmarks.model.Note;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deleting stored objects with delete(Collection) by chunks of given size (all chunks in one
+ * transaction). Objects are inserted again before every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class DeleteBenchmark {
+    @Param({"100", "1000"})
+    public int rows;
+
+    @Param({"1", "100", "500"})
+    public int chunkSize;
+
+    private BenchmarkDatabase database;
+    private List<Note> notes;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase();
+        notes = Fixtures.notes(rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void insertRows() throws Exception {
+        for (Note note : notes) {
+            note.id = 0;
+        }
+        database.asql.saveAll(notes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public int deleteCollection() {
+        return database.asql.delete(notes, chunkSize);
+    }
+}
@@ -0,0 +1,67 @@
+package com.phlox.asql.benchmarks;
+
+import com.phlox.asql.ModelsInfoProcessor;
+import com.phlox.asql.SQLTemplate;
+import com.phlox.asql.benchmarks.model.Note;
+import com.phlox.asql.driver.DBStatement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparing SQL with named parameters: inlining values with
+ * {@link ModelsInfoProcessor#formatSQL(String, Object)} against binding them through cached
+ * {@link SQLTemplate} as exec* methods do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class FormatSqlBenchmark {
+    private static final String SQL = "UPDATE note SET title = :title, body = :body, rating = :rating, " +
+            "modification_time = :modification_time WHERE id = :id";
+
+    private BenchmarkDatabase database;
+    private ModelsInfoProcessor models;
+    private Note note;
+    private DBStatement statement;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase();
+        models = new ModelsInfoProcessor();
+        note = Note.sample(1);
+        note.title = "it's quoted";
+        statement = database.asql.getConnection().compileStatement(models.getClassInfo(Note.class).getSQLTemplate(SQL).sql);
+    }
+
+    @TearDown
+    public void tearDown() {
+        statement.close();
+        database.close();
+    }
+
+    @Benchmark
+    public String formatSQL() {
+        return models.formatSQL(SQL, note);
+    }
+
+    @Benchmark
+    public DBStatement bindSQLTemplate() {
+        models.getClassInfo(Note.class).getSQLTemplate(SQL).bind(note, statement);
+        return statement;
+    }
+}
@@ -0,0 +1,86 @@
+package com.phlox.asql.benchmarks;
+
+import com.phlox.asql.ModelsInfoProcessor;
+import com.phlox.asql.benchmarks.model.Fixtures;
+import com.phlox.asql.benchmarks.model.Message;
+import com.phlox.asql.benchmarks.model.Note;
+import com.phlox.asql.benchmarks.model.ReflectionNote;
+import com.phlox.asql.driver.DBCursor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of cursor rows to objects. Rows are read into memory once in setup (like filled
+ * CursorWindow), so only {@link ModelsInfoProcessor#instantiateObjectsFromCursor(Class, DBCursor)}
+ * is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class HydrationBenchmark {
+    /**
+     * "mapper" - {@link Note} with generated mapper, "reflection" - the same table read by reflection,
+     * "wide" - 20 columns {@link Message}
+     */
+    @Param({"mapper", "reflection", "wide"})
+    public String model;
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private ModelsInfoProcessor models;
+    private Class<?> type;
+    private DBCursor cursor;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase();
+        switch (model) {
+            case "mapper":
+                type = Note.class;
+                database.asql.saveAll(Fixtures.notes(rows));
+                break;
+            case "reflection":
+                type = ReflectionNote.class;
+                database.asql.saveAll(Fixtures.notes(rows));
+                break;
+            default:
+                type = Message.class;
+                database.asql.saveAll(Fixtures.messages(rows));
+        }
+        models = new ModelsInfoProcessor();
+        models.registerModels(type);
+        cursor = database.asql.getConnection().query(models.getClassInfo(type).getSelectSql(), null);
+        cursor.getCount();
+    }
+
+    @TearDown
+    public void tearDown() {
+        cursor.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List instantiateObjectsFromCursor() throws Exception {
+        cursor.moveToPosition(-1);
+        return models.instantiateObjectsFromCursor(type, cursor);
+    }
+}
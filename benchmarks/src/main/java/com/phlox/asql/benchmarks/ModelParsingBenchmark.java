@@ -0,0 +1,58 @@
+package com.phlox.asql.benchmarks;
+
+import com.phlox.asql.ClassInfo;
+import com.phlox.asql.ModelsInfoProcessor;
+import com.phlox.asql.benchmarks.model.Message;
+import com.phlox.asql.benchmarks.model.Note;
+import com.phlox.asql.benchmarks.model.ReflectionNote;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start cost of model metadata: every call parses model with fresh
+ * {@link ModelsInfoProcessor} (annotations, fields, column names conversion, mapper lookup
+ * and SQL preparation). JVM reflection caches are warm, so it is lower bound of first query delay.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ModelParsingBenchmark {
+    @Param({"mapper", "reflection", "wide"})
+    public String model;
+
+    private Class<?> type;
+
+    @Setup
+    public void setUp() {
+        switch (model) {
+            case "mapper":
+                type = Note.class;
+                break;
+            case "reflection":
+                type = ReflectionNote.class;
+                break;
+            default:
+                type = Message.class;
+        }
+    }
+
+    @Benchmark
+    public ClassInfo parseClassFields() {
+        return new ModelsInfoProcessor().getClassInfo(type);
+    }
+}
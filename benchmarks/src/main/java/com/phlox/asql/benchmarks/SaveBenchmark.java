@@ -0,0 +1,71 @@
+package com.phlox.asql.benchmarks;
+
+import com.phlox.asql.benchmarks.model.Fixtures;
+import com.phlox.asql.benchmarks.model.Note;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserting batch of new objects one by one (transaction per object) against single saveAll call
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class SaveBenchmark {
+    @Param({"100", "1000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private List<Note> notes;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase();
+        notes = Fixtures.notes(rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        database.asql.clear(Note.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public int saveOneByOne() throws Exception {
+        for (Note note : notes) {
+            note.id = 0;
+            database.asql.save(note);
+        }
+        return notes.size();
+    }
+
+    @Benchmark
+    public int saveAll() throws Exception {
+        for (Note note : notes) {
+            note.id = 0;
+        }
+        return database.asql.saveAll(notes);
+    }
+}
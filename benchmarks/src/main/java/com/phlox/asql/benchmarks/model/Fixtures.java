@@ -0,0 +1,47 @@
+package com.phlox.asql.benchmarks.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Fixtures {
+    private static final String WORDS = "lorem ipsum dolor sit amet consectetur adipiscing elit sed do " +
+            "eiusmod tempor incididunt ut labore et dolore magna aliqua ";
+
+    /**
+     * @return deterministic text of given length that differs between rows
+     */
+    static String text(int seed, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        int offset = (seed * 7) % WORDS.length();
+        while (sb.length() < length) {
+            sb.append(WORDS, offset, WORDS.length());
+            offset = 0;
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    public static List<Note> notes(int count) {
+        List<Note> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(Note.sample(i));
+        }
+        return result;
+    }
+
+    public static List<ReflectionNote> reflectionNotes(int count) {
+        List<ReflectionNote> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(ReflectionNote.sample(i));
+        }
+        return result;
+    }
+
+    public static List<Message> messages(int count) {
+        List<Message> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(Message.sample(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package com.phlox.asql.benchmarks.model;
+
+import com.phlox.asql.annotations.DBTable;
+
+/**
+ * Wide model (20 columns) like synced chat message or mail header
+ */
+@DBTable(name = "message")
+public class Message {
+    public long id;
+    public long conversationId;
+    public long senderId;
+    public String senderName;
+    public String senderAvatarUrl;
+    public String text;
+    public String previewText;
+    public long sentTime;
+    public long receivedTime;
+    public long readTime;
+    public long editTime;
+    public int status;
+    public int type;
+    public int attachmentsCount;
+    public short priority;
+    public boolean outgoing;
+    public boolean pinned;
+    public boolean deleted;
+    public double latitude;
+    public double longitude;
+
+    public Message() {
+    }
+
+    public static Message sample(int i) {
+        Message message = new Message();
+        message.conversationId = i % 20;
+        message.senderId = i % 100;
+        message.senderName = "Sender " + (i % 100);
+        message.senderAvatarUrl = "https://example.com/avatars/" + (i % 100) + ".png";
+        message.text = Fixtures.text(i, 120);
+        message.previewText = message.text.substring(0, 40);
+        message.sentTime = 1500000000000L + i * 1000L;
+        message.receivedTime = message.sentTime + 150;
+        message.readTime = i % 4 == 0 ? 0 : message.receivedTime + 5000;
+        message.status = i % 4;
+        message.type = i % 3;
+        message.attachmentsCount = i % 5 == 0 ? 1 : 0;
+        message.priority = (short) (i % 2);
+        message.outgoing = i % 2 == 0;
+        message.latitude = 50.45 + i * 1e-6;
+        message.longitude = 30.52 + i * 1e-6;
+        return message;
+    }
+}
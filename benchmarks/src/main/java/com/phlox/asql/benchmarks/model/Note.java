@@ -0,0 +1,35 @@
+package com.phlox.asql.benchmarks.model;
+
+import com.phlox.asql.annotations.DBColumn;
+import com.phlox.asql.annotations.DBTable;
+
+/**
+ * Typical list item model, has generated mapper
+ */
+@DBTable(name = "note")
+public class Note {
+    public long id;
+    @DBColumn(indexed = true)
+    public String title;
+    public String body;
+    public long creationTime;
+    public long modificationTime;
+    public double rating;
+    public int category;
+    public boolean archived;
+
+    public Note() {
+    }
+
+    public static Note sample(int i) {
+        Note note = new Note();
+        note.title = "Note title " + i;
+        note.body = Fixtures.text(i, 200);
+        note.creationTime = 1500000000000L + i * 60000L;
+        note.modificationTime = note.creationTime + 30000;
+        note.rating = (i % 50) / 10.0;
+        note.category = i % 7;
+        note.archived = i % 3 == 0;
+        return note;
+    }
+}
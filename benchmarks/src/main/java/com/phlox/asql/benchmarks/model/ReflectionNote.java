@@ -0,0 +1,39 @@
+package com.phlox.asql.benchmarks.model;
+
+import com.phlox.asql.annotations.DBTable;
+
+/**
+ * Same table as {@link Note}, but private fields can not be accessed by generated mapper,
+ * so it is read and written through reflection
+ */
+@DBTable(name = "note")
+public class ReflectionNote {
+    private long id;
+    private String title;
+    private String body;
+    private long creationTime;
+    private long modificationTime;
+    private double rating;
+    private int category;
+    private boolean archived;
+
+    public ReflectionNote() {
+    }
+
+    public static ReflectionNote sample(int i) {
+        Note note = Note.sample(i);
+        ReflectionNote result = new ReflectionNote();
+        result.title = note.title;
+        result.body = note.body;
+        result.creationTime = note.creationTime;
+        result.modificationTime = note.modificationTime;
+        result.rating = note.rating;
+        result.category = note.category;
+        result.archived = note.archived;
+        return result;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+}
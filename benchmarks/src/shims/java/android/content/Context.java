@@ -0,0 +1,31 @@
+package android.content;
+
+import java.io.File;
+
+/**
+ * JVM replacement of Android context, keeps databases in given directory
+ */
+public class Context {
+    private final File databasesDir;
+
+    public Context(File databasesDir) {
+        this.databasesDir = databasesDir;
+    }
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public File getDatabasePath(String name) {
+        return new File(databasesDir, name);
+    }
+
+    public boolean deleteDatabase(String name) {
+        File file = getDatabasePath(name);
+        boolean deleted = file.delete();
+        for (String suffix : new String[]{"-journal", "-wal", "-shm"}) {
+            new File(file.getPath() + suffix).delete();
+        }
+        return deleted;
+    }
+}
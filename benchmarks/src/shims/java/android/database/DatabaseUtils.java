@@ -0,0 +1,8 @@
+package android.database;
+
+public class DatabaseUtils {
+
+    public static String sqlEscapeString(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
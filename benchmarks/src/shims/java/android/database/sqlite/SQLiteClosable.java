@@ -0,0 +1,9 @@
+package android.database.sqlite;
+
+import java.io.Closeable;
+
+public abstract class SQLiteClosable implements Closeable {
+
+    @Override
+    public abstract void close();
+}
@@ -0,0 +1,258 @@
+package android.database.sqlite;
+
+import android.database.Cursor;
+
+import java.nio.charset.Charset;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cursor over query result. As on Android query is executed lazily, on first access to rows,
+ * and the whole result is copied to memory (like into one unlimited CursorWindow).
+ */
+public class SQLiteCursor implements Cursor {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final SQLiteQuery query;
+    private String[] columnNames;
+    private List<Object[]> rows;
+    private Object[] row;
+    private int position = -1;
+    private boolean closed = false;
+
+    public SQLiteCursor(SQLiteCursorDriver driver, String editTable, SQLiteQuery query) {
+        this.query = query;
+    }
+
+    private void fill() {
+        if (rows != null) return;
+        if (closed) {
+            throw new IllegalStateException("Cursor is closed");
+        }
+        query.database.lock();
+        try {
+            query.applyBindings();
+            ResultSet rs = query.statement.executeQuery();
+            try {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                columnNames = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    columnNames[i] = metaData.getColumnLabel(i + 1);
+                }
+                rows = new ArrayList<>();
+                while (rs.next()) {
+                    Object[] values = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        Object value = rs.getObject(i + 1);
+                        values[i] = value instanceof Integer ? Long.valueOf((Integer) value) : value;
+                    }
+                    rows.add(values);
+                }
+            } finally {
+                rs.close();
+            }
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, query.sql);
+        } finally {
+            query.database.unlock();
+            query.close();
+        }
+    }
+
+    @Override
+    public int getCount() {
+        fill();
+        return rows.size();
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        int count = getCount();
+        if (position >= count) {
+            this.position = count;
+            row = null;
+            return false;
+        }
+        if (position < 0) {
+            this.position = -1;
+            row = null;
+            return false;
+        }
+        this.position = position;
+        row = rows.get(position);
+        return true;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(getCount() - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return moveToPosition(position + 1);
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        int dot = columnName.lastIndexOf('.');
+        if (dot != -1) {
+            columnName = columnName.substring(dot + 1);
+        }
+        String[] names = getColumnNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return getColumnNames()[columnIndex];
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        fill();
+        return columnNames;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return getColumnNames().length;
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return value.toString().getBytes(UTF_8);
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, UTF_8);
+        }
+        return value.toString();
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return (long) parseNumber(value);
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return (float) getDouble(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        Object value = value(columnIndex);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return parseNumber(value);
+    }
+
+    @Override
+    public int getType(int columnIndex) {
+        Object value = value(columnIndex);
+        if (value == null) {
+            return FIELD_TYPE_NULL;
+        } else if (value instanceof Long) {
+            return FIELD_TYPE_INTEGER;
+        } else if (value instanceof Number) {
+            return FIELD_TYPE_FLOAT;
+        } else if (value instanceof String) {
+            return FIELD_TYPE_STRING;
+        }
+        return FIELD_TYPE_BLOB;
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return value(columnIndex) == null;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        rows = null;
+        row = null;
+        query.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private Object value(int columnIndex) {
+        if (row == null) {
+            throw new IllegalStateException("Cursor is not positioned on a row, position " + position);
+        }
+        return row[columnIndex];
+    }
+
+    /**
+     * Text and blob values converted to number as SQLite does: leading numeric prefix or 0
+     */
+    private static double parseNumber(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        String text = value instanceof byte[] ? new String((byte[]) value, UTF_8) : value.toString();
+        text = text.trim();
+        int end = 0;
+        while (end < text.length() && "+-.0123456789eE".indexOf(text.charAt(end)) != -1) {
+            end++;
+        }
+        for (; end > 0; end--) {
+            try {
+                return Double.parseDouble(text.substring(0, end));
+            } catch (NumberFormatException e) {
+                //try shorter prefix
+            }
+        }
+        return 0;
+    }
+}
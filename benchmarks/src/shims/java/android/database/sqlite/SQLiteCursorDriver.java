@@ -0,0 +1,7 @@
+package android.database.sqlite;
+
+/**
+ * Not used by JVM implementation, cursors are created with null driver
+ */
+public interface SQLiteCursorDriver {
+}
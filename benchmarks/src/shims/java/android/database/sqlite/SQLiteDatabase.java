@@ -0,0 +1,288 @@
+package android.database.sqlite;
+
+import android.database.Cursor;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM implementation of Android database over single sqlite-jdbc connection. Like Android
+ * connection pool without WAL it serializes all operations, and transaction holds connection
+ * for its thread until it ends.
+ */
+public final class SQLiteDatabase extends SQLiteClosable {
+
+    public interface CursorFactory {
+        Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery, String editTable, SQLiteQuery query);
+    }
+
+    private final String path;
+    private final Connection connection;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int transactionDepth = 0;
+    private final BitSet transactionSuccessful = new BitSet();
+    private boolean transactionFailed = false;
+    private final List<SQLiteTransactionListener> transactionListeners = new ArrayList<>();
+    private PreparedStatement lastInsertRowIdStatement;
+    private boolean writeAheadLoggingEnabled = false;
+    private volatile boolean open = true;
+
+    private SQLiteDatabase(String path, Connection connection) {
+        this.path = path;
+        this.connection = connection;
+    }
+
+    public static SQLiteDatabase openOrCreateDatabase(String path, CursorFactory factory) {
+        try {
+            return new SQLiteDatabase(path, DriverManager.getConnection("jdbc:sqlite:" + path));
+        } catch (SQLException e) {
+            throw new SQLiteException("Can not open database " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Cursor rawQuery(String sql, String[] selectionArgs) {
+        return rawQueryWithFactory(null, sql, selectionArgs, null);
+    }
+
+    public Cursor rawQueryWithFactory(CursorFactory cursorFactory, String sql, String[] selectionArgs, String editTable) {
+        SQLiteQuery query = new SQLiteQuery(this, sql);
+        try {
+            query.bindAllArgsAsStrings(selectionArgs);
+        } catch (RuntimeException e) {
+            query.close();
+            throw e;
+        }
+        return cursorFactory != null ? cursorFactory.newCursor(this, null, editTable, query) :
+                new SQLiteCursor(null, editTable, query);
+    }
+
+    public SQLiteStatement compileStatement(String sql) {
+        return new SQLiteStatement(this, sql);
+    }
+
+    public void execSQL(String sql) {
+        execSQL(sql, null);
+    }
+
+    public void execSQL(String sql, Object[] bindArgs) {
+        SQLiteStatement statement = compileStatement(sql);
+        try {
+            if (bindArgs != null) {
+                for (int i = 0; i < bindArgs.length; i++) {
+                    statement.bindObject(i + 1, bindArgs[i]);
+                }
+            }
+            statement.execute();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public void beginTransaction() {
+        beginTransaction("BEGIN EXCLUSIVE", null);
+    }
+
+    public void beginTransactionNonExclusive() {
+        beginTransaction("BEGIN IMMEDIATE", null);
+    }
+
+    /**
+     * Listener gets onBegin now and onCommit or onRollback when this level ends
+     */
+    public void beginTransactionWithListener(SQLiteTransactionListener transactionListener) {
+        beginTransaction("BEGIN EXCLUSIVE", transactionListener);
+    }
+
+    private void beginTransaction(String sql, SQLiteTransactionListener transactionListener) {
+        lock.lock();
+        try {
+            if (transactionDepth == 0) {
+                execRaw(sql);
+                transactionFailed = false;
+            }
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+        transactionDepth++;
+        transactionSuccessful.clear(transactionDepth);
+        transactionListeners.add(transactionListener);
+        if (transactionListener != null) {
+            transactionListener.onBegin();
+        }
+    }
+
+    public void setTransactionSuccessful() {
+        if (!inTransaction()) {
+            throw new IllegalStateException("Cannot perform this operation because there is no current transaction.");
+        }
+        transactionSuccessful.set(transactionDepth);
+    }
+
+    /**
+     * Whole transaction is rolled back if any of nested transactions was not marked successful
+     */
+    public void endTransaction() {
+        if (!inTransaction()) {
+            throw new IllegalStateException("Cannot perform this operation because there is no current transaction.");
+        }
+        try {
+            if (!transactionSuccessful.get(transactionDepth)) {
+                transactionFailed = true;
+            }
+            SQLiteTransactionListener transactionListener = transactionListeners.remove(transactionDepth - 1);
+            transactionDepth--;
+            if (transactionListener != null) {
+                if (transactionFailed) {
+                    transactionListener.onRollback();
+                } else {
+                    transactionListener.onCommit();
+                }
+            }
+            if (transactionDepth == 0) {
+                execRaw(transactionFailed ? "ROLLBACK" : "COMMIT");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean inTransaction() {
+        return lock.isHeldByCurrentThread() && transactionDepth > 0;
+    }
+
+    public boolean enableWriteAheadLogging() {
+        lock();
+        try {
+            if (":memory:".equals(path)) {
+                return false;
+            }
+            execRaw("PRAGMA journal_mode=WAL");
+            writeAheadLoggingEnabled = true;
+            return true;
+        } finally {
+            unlock();
+        }
+    }
+
+    public void disableWriteAheadLogging() {
+        lock();
+        try {
+            execRaw("PRAGMA journal_mode=DELETE");
+            writeAheadLoggingEnabled = false;
+        } finally {
+            unlock();
+        }
+    }
+
+    public boolean isWriteAheadLoggingEnabled() {
+        return writeAheadLoggingEnabled;
+    }
+
+    /**
+     * Statements are cached by ASQL itself, nothing to do here
+     */
+    public void setMaxSqlCacheSize(int cacheSize) {
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    public int getVersion() {
+        SQLiteStatement statement = compileStatement("PRAGMA user_version");
+        try {
+            return (int) statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public void setVersion(int version) {
+        execRaw("PRAGMA user_version = " + version);
+    }
+
+    @Override
+    public void close() {
+        lock();
+        try {
+            if (!open) return;
+            open = false;
+            if (lastInsertRowIdStatement != null) {
+                lastInsertRowIdStatement.close();
+            }
+            connection.close();
+        } catch (SQLException e) {
+            throw toSQLiteException(e, null);
+        } finally {
+            unlock();
+        }
+    }
+
+    Connection getConnection() {
+        if (!open) {
+            throw new IllegalStateException("attempt to re-open an already-closed object: " + path);
+        }
+        return connection;
+    }
+
+    void lock() {
+        lock.lock();
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Should be called with lock held
+     */
+    long lastInsertRowId() throws SQLException {
+        if (lastInsertRowIdStatement == null) {
+            lastInsertRowIdStatement = getConnection().prepareStatement("SELECT last_insert_rowid()");
+        }
+        ResultSet rs = lastInsertRowIdStatement.executeQuery();
+        try {
+            rs.next();
+            return rs.getLong(1);
+        } finally {
+            rs.close();
+        }
+    }
+
+    private void execRaw(String sql) {
+        lock();
+        try {
+            Statement statement = getConnection().createStatement();
+            try {
+                statement.execute(sql);
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            throw toSQLiteException(e, sql);
+        } finally {
+            unlock();
+        }
+    }
+
+    static SQLiteException toSQLiteException(SQLException e, String sql) {
+        return new SQLiteException(sql != null ? e.getMessage() + ", while executing: " + sql : e.getMessage(), e);
+    }
+}
@@ -0,0 +1,10 @@
+package android.database.sqlite;
+
+public class SQLiteDoneException extends SQLiteException {
+    public SQLiteDoneException() {
+    }
+
+    public SQLiteDoneException(String error) {
+        super(error);
+    }
+}
@@ -0,0 +1,112 @@
+package android.database.sqlite;
+
+import android.content.Context;
+import android.database.DatabaseErrorHandler;
+
+/**
+ * Opens database file in directory of {@link Context}, in memory database if name is null
+ */
+public abstract class SQLiteOpenHelper {
+    private final Context context;
+    private final String name;
+    private final SQLiteDatabase.CursorFactory factory;
+    private final int newVersion;
+    private SQLiteDatabase database;
+    private boolean enableWriteAheadLogging = false;
+
+    public SQLiteOpenHelper(Context context, String name, SQLiteDatabase.CursorFactory factory, int version) {
+        this(context, name, factory, version, null);
+    }
+
+    public SQLiteOpenHelper(Context context, String name, SQLiteDatabase.CursorFactory factory, int version,
+                            DatabaseErrorHandler errorHandler) {
+        if (version < 1) throw new IllegalArgumentException("Version must be >= 1, was " + version);
+        this.context = context;
+        this.name = name;
+        this.factory = factory;
+        this.newVersion = version;
+    }
+
+    public String getDatabaseName() {
+        return name;
+    }
+
+    public synchronized void setWriteAheadLoggingEnabled(boolean enabled) {
+        if (enableWriteAheadLogging != enabled) {
+            if (database != null && database.isOpen()) {
+                if (enabled) {
+                    database.enableWriteAheadLogging();
+                } else {
+                    database.disableWriteAheadLogging();
+                }
+            }
+            enableWriteAheadLogging = enabled;
+        }
+    }
+
+    public SQLiteDatabase getWritableDatabase() {
+        return getDatabase();
+    }
+
+    public SQLiteDatabase getReadableDatabase() {
+        return getDatabase();
+    }
+
+    private synchronized SQLiteDatabase getDatabase() {
+        if (database != null && database.isOpen()) {
+            return database;
+        }
+        String path = name == null ? ":memory:" : context.getDatabasePath(name).getPath();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(path, factory);
+        try {
+            onConfigure(db);
+            if (enableWriteAheadLogging) {
+                db.enableWriteAheadLogging();
+            }
+            int version = db.getVersion();
+            if (version != newVersion) {
+                db.beginTransaction();
+                try {
+                    if (version == 0) {
+                        onCreate(db);
+                    } else if (version > newVersion) {
+                        onDowngrade(db, version, newVersion);
+                    } else {
+                        onUpgrade(db, version, newVersion);
+                    }
+                    db.setVersion(newVersion);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+            onOpen(db);
+        } catch (RuntimeException e) {
+            db.close();
+            throw e;
+        }
+        database = db;
+        return db;
+    }
+
+    public void onConfigure(SQLiteDatabase db) {
+    }
+
+    public abstract void onCreate(SQLiteDatabase db);
+
+    public abstract void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion);
+
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        throw new SQLiteException("Can't downgrade database from version " + oldVersion + " to " + newVersion);
+    }
+
+    public void onOpen(SQLiteDatabase db) {
+    }
+
+    public synchronized void close() {
+        if (database != null && database.isOpen()) {
+            database.close();
+            database = null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package android.database.sqlite;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Compiled JDBC statement with Android style bindings. Bindings are kept until
+ * {@link #clearBindings()} and applied right before every execution.
+ */
+public abstract class SQLiteProgram extends SQLiteClosable {
+    final SQLiteDatabase database;
+    final String sql;
+    final PreparedStatement statement;
+    private final Object[] bindArgs;
+    private boolean closed = false;
+
+    SQLiteProgram(SQLiteDatabase database, String sql) {
+        this.database = database;
+        this.sql = sql;
+        database.lock();
+        try {
+            statement = database.getConnection().prepareStatement(sql);
+            bindArgs = new Object[statement.getParameterMetaData().getParameterCount()];
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, sql);
+        } finally {
+            database.unlock();
+        }
+    }
+
+    public void bindNull(int index) {
+        bind(index, null);
+    }
+
+    public void bindLong(int index, long value) {
+        bind(index, value);
+    }
+
+    public void bindDouble(int index, double value) {
+        bind(index, value);
+    }
+
+    public void bindString(int index, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("the bind value at index " + index + " is null");
+        }
+        bind(index, value);
+    }
+
+    public void bindBlob(int index, byte[] value) {
+        if (value == null) {
+            throw new IllegalArgumentException("the bind value at index " + index + " is null");
+        }
+        bind(index, value);
+    }
+
+    public void clearBindings() {
+        Arrays.fill(bindArgs, null);
+    }
+
+    public void bindAllArgsAsStrings(String[] bindArgs) {
+        if (bindArgs != null) {
+            for (int i = bindArgs.length; i != 0; i--) {
+                bindString(i, bindArgs[i - 1]);
+            }
+        }
+    }
+
+    /**
+     * Binds value by its type as android.database.DatabaseUtils.bindObjectToProgram does
+     */
+    void bindObject(int index, Object value) {
+        if (value == null) {
+            bindNull(index);
+        } else if (value instanceof Double || value instanceof Float) {
+            bindDouble(index, ((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            bindLong(index, ((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            bindLong(index, (Boolean) value ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            bindBlob(index, (byte[]) value);
+        } else {
+            bindString(index, value.toString());
+        }
+    }
+
+    private void bind(int index, Object value) {
+        if (index < 1 || index > bindArgs.length) {
+            throw new IllegalArgumentException("Cannot bind argument at index " + index +
+                    " because the index is out of range.  The statement has " + bindArgs.length + " parameters.");
+        }
+        bindArgs[index - 1] = value;
+    }
+
+    /**
+     * Should be called with database lock held
+     */
+    void applyBindings() throws SQLException {
+        for (int i = 0; i < bindArgs.length; i++) {
+            Object value = bindArgs[i];
+            if (value == null) {
+                statement.setNull(i + 1, Types.NULL);
+            } else if (value instanceof Long) {
+                statement.setLong(i + 1, (Long) value);
+            } else if (value instanceof Double) {
+                statement.setDouble(i + 1, (Double) value);
+            } else if (value instanceof String) {
+                statement.setString(i + 1, (String) value);
+            } else {
+                statement.setBytes(i + 1, (byte[]) value);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        database.lock();
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, sql);
+        } finally {
+            database.unlock();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package android.database.sqlite;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public final class SQLiteStatement extends SQLiteProgram {
+
+    SQLiteStatement(SQLiteDatabase database, String sql) {
+        super(database, sql);
+    }
+
+    public void execute() {
+        database.lock();
+        try {
+            applyBindings();
+            statement.execute();
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, sql);
+        } finally {
+            database.unlock();
+        }
+    }
+
+    public int executeUpdateDelete() {
+        database.lock();
+        try {
+            applyBindings();
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, sql);
+        } finally {
+            database.unlock();
+        }
+    }
+
+    /**
+     * @return row id of inserted row or -1 if nothing was inserted
+     */
+    public long executeInsert() {
+        database.lock();
+        try {
+            applyBindings();
+            return statement.executeUpdate() > 0 ? database.lastInsertRowId() : -1;
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, sql);
+        } finally {
+            database.unlock();
+        }
+    }
+
+    public long simpleQueryForLong() {
+        database.lock();
+        try {
+            applyBindings();
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (!rs.next()) {
+                    throw new SQLiteDoneException();
+                }
+                return rs.getLong(1);
+            } finally {
+                rs.close();
+            }
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, sql);
+        } finally {
+            database.unlock();
+        }
+    }
+
+    public String simpleQueryForString() {
+        database.lock();
+        try {
+            applyBindings();
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (!rs.next()) {
+                    throw new SQLiteDoneException();
+                }
+                return rs.getString(1);
+            } finally {
+                rs.close();
+            }
+        } catch (SQLException e) {
+            throw SQLiteDatabase.toSQLiteException(e, sql);
+        } finally {
+            database.unlock();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package android.os;
+
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.O_MR1;
+    }
+
+    public static class VERSION_CODES {
+        public static final int HONEYCOMB = 11;
+        public static final int JELLY_BEAN = 16;
+        public static final int O_MR1 = 27;
+    }
+}
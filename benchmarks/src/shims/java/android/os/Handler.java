@@ -0,0 +1,62 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class Handler {
+    private final Looper looper;
+    private final Map<Runnable, List<Future<?>>> pending = new IdentityHashMap<>();
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public Looper getLooper() {
+        return looper;
+    }
+
+    public boolean post(Runnable r) {
+        return postDelayed(r, 0);
+    }
+
+    public boolean postDelayed(final Runnable r, long delayMillis) {
+        synchronized (pending) {
+            List<Future<?>> futures = pending.get(r);
+            if (futures == null) {
+                futures = new ArrayList<>(1);
+                pending.put(r, futures);
+            }
+            final List<Future<?>> runnableFutures = futures;
+            final Future<?>[] self = new Future<?>[1];
+            self[0] = looper.executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (pending) {
+                        runnableFutures.remove(self[0]);
+                        if (runnableFutures.isEmpty() && pending.get(r) == runnableFutures) {
+                            pending.remove(r);
+                        }
+                    }
+                    r.run();
+                }
+            }, Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+            futures.add(self[0]);
+        }
+        return true;
+    }
+
+    public void removeCallbacks(Runnable r) {
+        synchronized (pending) {
+            List<Future<?>> futures = pending.remove(r);
+            if (futures != null) {
+                for (Future<?> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package android.os;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * JVM replacement of Android looper: only main looper exists, it is backed by single daemon thread
+ */
+public final class Looper {
+    private static final Looper mainLooper = new Looper("main");
+
+    final ScheduledExecutorService executor;
+    private volatile Thread thread;
+
+    private Looper(final String name) {
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                thread = t;
+                return t;
+            }
+        });
+    }
+
+    public static Looper getMainLooper() {
+        return mainLooper;
+    }
+
+    public static Looper myLooper() {
+        return Thread.currentThread() == mainLooper.thread ? mainLooper : null;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+}
@@ -0,0 +1,60 @@
+package android.util;
+
+/**
+ * JVM replacement of Android log, warnings and errors are printed to stderr
+ */
+public final class Log {
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private static volatile int level = WARN;
+
+    private Log() {
+    }
+
+    public static void setLevel(int level) {
+        Log.level = level;
+    }
+
+    public static boolean isLoggable(String tag, int level) {
+        return level >= Log.level;
+    }
+
+    public static int d(String tag, String msg) {
+        return println(DEBUG, tag, msg, null);
+    }
+
+    public static int i(String tag, String msg) {
+        return println(INFO, tag, msg, null);
+    }
+
+    public static int w(String tag, String msg) {
+        return println(WARN, tag, msg, null);
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        return println(WARN, tag, msg, tr);
+    }
+
+    public static int e(String tag, String msg) {
+        return println(ERROR, tag, msg, null);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return println(ERROR, tag, msg, tr);
+    }
+
+    private static int println(int priority, String tag, String msg, Throwable tr) {
+        if (priority < level) {
+            return 0;
+        }
+        System.err.println("DIWE".charAt(priority - DEBUG) + "/" + tag + ": " + msg);
+        if (tr != null) {
+            tr.printStackTrace();
+        }
+        return msg.length();
+    }
+}
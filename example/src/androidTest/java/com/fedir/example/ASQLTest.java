@@ -1,12 +1,34 @@
 package com.fedir.example;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.test.InstrumentationRegistry;
 import android.support.test.runner.AndroidJUnit4;
 
 import com.phlox.asql.ASQL;
+import com.phlox.asql.BlobColumn;
+import com.phlox.asql.CloseableIterator;
+import com.phlox.asql.ColumnBuffers;
+import com.phlox.asql.DBFuture;
+import com.phlox.asql.DBOperation;
+import com.phlox.asql.DoubleArray;
+import com.phlox.asql.EntityCache;
+import com.phlox.asql.IntArray;
+import com.phlox.asql.InvalidationTracker;
+import com.phlox.asql.KeysetPager;
+import com.phlox.asql.LongArray;
+import com.phlox.asql.ModelStore;
+import com.phlox.asql.ObservableQuery;
+import com.phlox.asql.Query;
+import com.phlox.asql.QueryProfiler;
+import com.phlox.asql.StatementCache;
+import com.phlox.asql.WriteBehindQueue;
+import com.phlox.asql.annotations.DBColumn;
+import com.phlox.asql.annotations.DBIndex;
 import com.phlox.asql.annotations.DBTable;
+import com.phlox.asql.driver.DBConnection;
+import com.phlox.asql.driver.android.AndroidDriver;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -14,8 +36,21 @@ import org.junit.runner.RunWith;
 import org.junit.After;
 import org.junit.Before;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -51,6 +86,96 @@ public class ASQLTest {
         }
     }
 
+    @DBTable(name = "mapped_entity")
+    public static class MappedEntity {
+        long id;
+        String title;
+        double rating;
+        boolean flag;
+        public MappedEntity() {
+        }
+        public MappedEntity(String title, double rating, boolean flag) {
+            this.title = title;
+            this.rating = rating;
+            this.flag = flag;
+        }
+    }
+
+    @DBTable(name = "mapped_entity", projection = true)
+    public static class MappedEntityTitle {
+        long id;
+        String title;
+        public MappedEntityTitle() {
+        }
+    }
+
+    @DBTable(name = "schema_entity", indexes = {@DBIndex(columns = {"title", "rating"})})
+    public static class SchemaEntity {
+        long id;
+        @DBColumn(unique = true)
+        String code;
+        @DBColumn(indexed = true)
+        String title;
+        double rating;
+        public SchemaEntity() {
+        }
+    }
+
+    @DBTable(name = "cached_entity", cacheSize = 10)
+    public static class CachedEntity {
+        long id;
+        String title;
+        public CachedEntity() {
+        }
+        public CachedEntity(String title) {
+            this.title = title;
+        }
+    }
+
+    @DBTable(name = "tracked_entity", trackChanges = true)
+    public static class TrackedEntity {
+        long id;
+        String title;
+        int counter;
+        public TrackedEntity() {
+        }
+        public TrackedEntity(String title) {
+            this.title = title;
+        }
+    }
+
+    @DBTable(name = "untyped_entity")
+    public static class UntypedEntity {
+        long id;
+        long rank;
+        public UntypedEntity() {
+        }
+    }
+
+    @DBTable(name = "blob_entity")
+    public static class BlobEntity {
+        long id;
+        byte[] data;
+        ByteBuffer buffer;
+        public BlobEntity() {
+        }
+    }
+
+    public enum Status {
+        NEW, DONE
+    }
+
+    @DBTable(name = "converted_entity", trackChanges = true)
+    public static class ConvertedEntity {
+        long id;
+        Status status;
+        Date time;
+        Integer attempts;
+        UUID uuid;
+        public ConvertedEntity() {
+        }
+    }
+
     @BeforeClass
     public static void init() {
         Context appContext = InstrumentationRegistry.getTargetContext();
@@ -66,6 +191,22 @@ public class ASQLTest {
                         + "field1 TEXT,"
                         + "field2 TEXT"
                         + ");");
+                db.execSQL("CREATE TABLE mapped_entity ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                        + "title TEXT,"
+                        + "rating REAL,"
+                        + "flag INTEGER"
+                        + ");");
+                db.execSQL("CREATE TABLE cached_entity ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                        + "title TEXT"
+                        + ");");
+                asql.createTables(db, BlobEntity.class, ConvertedEntity.class);
+                db.execSQL("CREATE TABLE tracked_entity ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                        + "title TEXT,"
+                        + "counter INTEGER"
+                        + ");");
             }
         });
         asql = ASQL.getDefault(appContext);
@@ -80,6 +221,9 @@ public class ASQLTest {
     public void tearDown() throws Exception {
         asql.clear(Entity.class);
         asql.clear(IdLessEntity.class);
+        asql.clear(MappedEntity.class);
+        asql.clear(CachedEntity.class);
+        asql.clear(TrackedEntity.class);
     }
 
     @Test
@@ -92,6 +236,21 @@ public class ASQLTest {
         asql.exec("DELETE FROM entity");
     }
 
+    @Test
+    public void execWithNamedParameters() throws Exception {
+        Entity e = new Entity("it's a test");
+        long id = asql.execInsert("INSERT INTO entity (title) VALUES (:title)", e);
+        assertTrue(id > 0);
+        long hits = asql.getStatementCache().getHitCount();
+        e.title = "second";
+        asql.execInsert("INSERT INTO entity (title) VALUES (:title)", e);
+        assertEquals(asql.getStatementCache().getHitCount(), hits + 1);
+        e.id = (int) id;
+        e.title = "updated";
+        assertEquals(asql.execUpdateDelete("UPDATE entity SET title = :title WHERE id = :id", e), 1);
+        assertEquals(asql.find(Entity.class, "id = ?", Long.toString(id)).title, "updated");
+    }
+
     @Test
     public void save() throws Exception {
         Entity e = new Entity("test");
@@ -103,6 +262,390 @@ public class ASQLTest {
         assertEquals(e.title, e2.title);
     }
 
+    @Test
+    public void saveAll() throws Exception {
+        List<Entity> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(new Entity("test" + i));
+        }
+        assertEquals(asql.saveAll(items, 300), 1000);
+        assertEquals(asql.count(Entity.class), 1000);
+        for (Entity e : items) {
+            assertTrue(e.id > 0);
+        }
+    }
+
+    @Test
+    public void concurrentSave() throws Exception {
+        final int threadsCount = 4;
+        final int entitiesPerThread = 200;
+        final List<Throwable> errors = new ArrayList<>();
+        Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            final String prefix = "thread" + t + "_";
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < entitiesPerThread; i++) {
+                            Entity e = new Entity(prefix + i);
+                            asql.save(e);
+                            Entity loaded = asql.find(Entity.class, "id = ?", Integer.toString(e.id));
+                            assertEquals(e.title, loaded.title);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty());
+        assertEquals(asql.count(Entity.class), threadsCount * entitiesPerThread);
+    }
+
+    @Test
+    public void writeBehindQueue() throws Exception {
+        WriteBehindQueue queue = new WriteBehindQueue(asql, 60000, 1000);
+        Entity e = new Entity("test");
+        asql.save(e);
+        for (int i = 0; i < 10; i++) {
+            e.title = "test" + i;
+            queue.save(e, null);
+        }
+        Entity e2 = new Entity("test2");
+        queue.save(e2, null);
+        queue.save(e2, null);
+        assertEquals(queue.getPendingCount(), 2);
+        queue.flush();
+        assertEquals(queue.getPendingCount(), 0);
+        assertEquals(asql.count(Entity.class), 2);
+        assertEquals(asql.find(Entity.class, "id = ?", Integer.toString(e.id)).title, "test9");
+        queue.delete(e, null);
+        queue.delete(e2, null);
+        queue.flush();
+        assertEquals(asql.count(Entity.class), 0);
+    }
+
+    @Test
+    public void futureChainingAndCancel() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        DBFuture<Long> blocker = asql.submit(new DBOperation<Long>() {
+            @Override
+            public Long run(ASQL asql) throws Exception {
+                started.countDown();
+                release.await();
+                return asql.save(new Entity("test"));
+            }
+        });
+        DBFuture<Integer> chained = blocker.then(new DBFuture.Continuation<Long, Integer>() {
+            @Override
+            public Integer run(ASQL asql, Long previousResult) throws Exception {
+                return asql.delete(asql.find(Entity.class, "id = ?", Long.toString(previousResult)));
+            }
+        });
+        final AtomicBoolean queuedRan = new AtomicBoolean(false);
+        DBFuture<Void> queued = asql.submit(new DBOperation<Void>() {
+            @Override
+            public Void run(ASQL asql) throws Exception {
+                queuedRan.set(true);
+                return null;
+            }
+        });
+        started.await();
+        assertTrue(queued.cancel(false));
+        release.countDown();
+        assertEquals(chained.getResult(), Integer.valueOf(1));
+        assertTrue(queued.isCancelled());
+        assertFalse(queuedRan.get());
+        assertEquals(asql.count(Entity.class), 0);
+    }
+
+    @Test
+    public void continuationOfCompletedFutureRunsOnDBThread() throws Exception {
+        DBFuture<Long> done = asql.submit(new DBOperation<Long>() {
+            @Override
+            public Long run(ASQL asql) throws Exception {
+                return 1L;
+            }
+        });
+        assertEquals(done.getResult(), Long.valueOf(1));
+        final Thread callerThread = Thread.currentThread();
+        final AtomicBoolean ranOnCaller = new AtomicBoolean(true);
+        final CountDownLatch delivered = new CountDownLatch(1);
+        DBFuture<Long> next = done.then(new DBFuture.Continuation<Long, Long>() {
+            @Override
+            public Long run(ASQL asql, Long previousResult) throws Exception {
+                ranOnCaller.set(Thread.currentThread() == callerThread);
+                return previousResult + 1;
+            }
+        });
+        done.onDone(null, new ASQL.ResultCallback<Long>() {
+            @Override
+            public void onDone(Long result, Exception exception) {
+                assertNotSame(Thread.currentThread(), callerThread);
+                delivered.countDown();
+            }
+        });
+        assertEquals(next.getResult(), Long.valueOf(2));
+        assertFalse(ranOnCaller.get());
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void continuationOfReadRunsOnWriteExecutor() throws Exception {
+        Context appContext = InstrumentationRegistry.getTargetContext();
+        appContext.deleteDatabase("wal_test.db");
+        ASQL walAsql = new ASQL(appContext, "wal_test.db", 1, new ASQL.BaseCallback() {
+            @Override
+            public void onCreate(ASQL asql, SQLiteDatabase db) {
+                db.execSQL("CREATE TABLE entity (ID INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, TITLE TEXT);");
+            }
+        });
+        try {
+            walAsql.enableWriteAheadLogging(2);
+            final Thread writeThread = walAsql.submit(new DBOperation<Thread>() {
+                @Override
+                public Thread run(ASQL asql) throws Exception {
+                    return Thread.currentThread();
+                }
+            }).getResult();
+            final AtomicBoolean readOnWriteThread = new AtomicBoolean(true);
+            DBFuture<Thread> saved = walAsql.submitRead(new DBOperation<Long>() {
+                @Override
+                public Long run(ASQL asql) throws Exception {
+                    readOnWriteThread.set(Thread.currentThread() == writeThread);
+                    return asql.count(Entity.class);
+                }
+            }).then(new DBFuture.Continuation<Long, Thread>() {
+                @Override
+                public Thread run(ASQL asql, Long count) throws Exception {
+                    asql.save(new Entity("after read " + count));
+                    return Thread.currentThread();
+                }
+            });
+            assertSame(saved.getResult(), writeThread);
+            assertFalse(readOnWriteThread.get());
+            assertEquals(walAsql.count(Entity.class), 1);
+        } finally {
+            walAsql.close();
+            appContext.deleteDatabase("wal_test.db");
+        }
+    }
+
+    @Test
+    public void observeQuery() throws Exception {
+        final List<Integer> resultSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch delivered = new CountDownLatch(2);
+        ObservableQuery<Entity> query = asql.observeQuery(Entity.class, "SELECT * FROM entity", new ASQL.ResultCallback<List<Entity>>() {
+            @Override
+            public void onDone(List<Entity> result, Exception exception) {
+                resultSizes.add(result.size());
+                delivered.countDown();
+            }
+        });
+        List<Entity> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(new Entity("test" + i));
+        }
+        asql.saveAll(items, 100, null);
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        query.close();
+        assertEquals(resultSizes.size(), 2);
+        assertEquals(resultSizes.get(1), Integer.valueOf(1000));
+    }
+
+    @Test
+    public void invalidationIsReportedOnceAfterCommit() throws Exception {
+        final AtomicInteger invalidations = new AtomicInteger();
+        InvalidationTracker.Observer observer = new InvalidationTracker.Observer() {
+            @Override
+            public void onInvalidated(Set<String> tables) {
+                invalidations.incrementAndGet();
+            }
+        };
+        InvalidationTracker tracker = asql.getInvalidationTracker();
+        tracker.addObserver(observer, Collections.singletonList("entity"));
+        try {
+            DBConnection connection = asql.getConnection();
+            connection.beginTransaction();
+            try {
+                asql.save(new Entity("rolled back"));
+            } finally {
+                connection.endTransaction();
+            }
+            Thread.sleep(300);
+            assertEquals(invalidations.get(), 0);
+
+            connection.beginTransaction();
+            try {
+                for (int i = 0; i < 10; i++) {
+                    asql.save(new Entity("test" + i));
+                }
+                Thread.sleep(300);
+                assertEquals(invalidations.get(), 0);
+                connection.setTransactionSuccessful();
+            } finally {
+                connection.endTransaction();
+            }
+            Thread.sleep(300);
+            assertEquals(invalidations.get(), 1);
+        } finally {
+            tracker.removeObserver(observer);
+        }
+    }
+
+    @Test
+    public void entityCache() throws Exception {
+        CachedEntity e = new CachedEntity("test");
+        asql.save(e);
+        EntityCache cache = asql.getEntityCache(CachedEntity.class);
+        assertNotNull(cache);
+        long hits = cache.getHitCount();
+        assertSame(asql.findByPrimaryKey(CachedEntity.class, e.id), e);
+        assertEquals(cache.getHitCount(), hits + 1);
+        asql.execUpdateDelete("UPDATE cached_entity SET title = 'changed' WHERE id = :id", e);
+        asql.invalidateCache(CachedEntity.class, e.id);
+        CachedEntity loaded = asql.findByPrimaryKey(CachedEntity.class, e.id);
+        assertNotSame(loaded, e);
+        assertEquals(loaded.title, "changed");
+        assertSame(asql.findByPrimaryKey(CachedEntity.class, e.id), loaded);
+        asql.delete(loaded);
+        assertNull(asql.findByPrimaryKey(CachedEntity.class, e.id));
+        assertNull(asql.getEntityCache(Entity.class));
+
+        //entity read before concurrent delete is not put back into cache
+        long stamp = cache.getModificationStamp();
+        cache.remove(e.id);
+        assertFalse(cache.putIfUnmodified(e.id, loaded, stamp));
+        assertNull(cache.get(e.id));
+    }
+
+    @Test
+    public void saveUpdatesOnlyChangedColumns() throws Exception {
+        TrackedEntity e = new TrackedEntity("test");
+        long id = asql.save(e);
+        TrackedEntity loaded = asql.find(TrackedEntity.class, "id = ?", Long.toString(id));
+        asql.exec("UPDATE tracked_entity SET counter = 5");
+        loaded.title = "changed";
+        assertEquals(asql.save(loaded), id);
+        TrackedEntity reloaded = asql.find(TrackedEntity.class, "id = ?", Long.toString(id));
+        assertEquals(reloaded.title, "changed");
+        assertEquals(reloaded.counter, 5);
+        //row deleted bypassing tracking is inserted again
+        asql.exec("DELETE FROM tracked_entity");
+        assertEquals(asql.save(reloaded), id);
+        assertEquals(asql.count(TrackedEntity.class), 1);
+    }
+
+    @Test
+    public void projections() throws Exception {
+        MappedEntity e = new MappedEntity("test", 4.5, true);
+        asql.save(e);
+        List<MappedEntity> partial = asql.findAll(MappedEntity.class, new String[]{"title"}, null);
+        assertEquals(partial.size(), 1);
+        assertEquals(partial.get(0).id, e.id);
+        assertEquals(partial.get(0).title, "test");
+        assertEquals(partial.get(0).rating, 0, 0);
+        MappedEntity rating = asql.find(MappedEntity.class, new String[]{"rating"}, "id = ?", Long.toString(e.id));
+        assertEquals(rating.rating, 4.5, 0);
+        assertNull(rating.title);
+        List<MappedEntityTitle> titles = asql.loadAll(MappedEntityTitle.class);
+        assertEquals(titles.size(), 1);
+        assertEquals(titles.get(0).title, "test");
+        try {
+            asql.save(titles.get(0));
+            fail("Projection should not be saved");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void queryBuilder() throws Exception {
+        List<MappedEntity> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(new MappedEntity("test" + i, i, i % 2 == 0));
+        }
+        asql.saveAll(items);
+        Query<MappedEntity> query = asql.query(MappedEntity.class)
+                .where("rating", ">=").and("flag", "=")
+                .orderBy("rating", true).limit(3);
+        List<MappedEntity> result = query.args(2.0, true).list();
+        assertEquals(result.size(), 3);
+        assertEquals(result.get(0).rating, 8, 0);
+        assertEquals(result.get(2).rating, 4, 0);
+        String sql = query.getSql();
+        assertEquals(query.args(7, true).limit(10).list().size(), 1);
+        assertSame(query.getSql(), sql);
+        assertEquals(asql.query(MappedEntity.class).where("RATING", ">=").and("flag", "=")
+                .orderBy("rating", true).limit(1).getSql(), sql);
+        assertEquals(asql.query(MappedEntity.class).where("title", "like").args("test%").count(), 10);
+        assertEquals(asql.query(MappedEntity.class).where("title", "=").args("test3").first().rating, 3, 0);
+    }
+
+    @Test
+    public void queryProfiler() throws Exception {
+        List<MappedEntity> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(new MappedEntity("test" + i, i, false));
+        }
+        asql.saveAll(items);
+        QueryProfiler profiler = asql.getProfiler();
+        profiler.reset();
+        profiler.setEnabled(true);
+        profiler.setExplainQueryPlanEnabled(true);
+        try {
+            asql.queryAll(MappedEntity.class, "SELECT * FROM mapped_entity WHERE title = 'test1'");
+            asql.queryAll(MappedEntity.class, "SELECT * FROM mapped_entity WHERE title = 'test2'");
+            asql.findByPrimaryKey(MappedEntity.class, items.get(0).id);
+        } finally {
+            profiler.setEnabled(false);
+            profiler.setExplainQueryPlanEnabled(false);
+        }
+        List<QueryProfiler.SqlStats> stats = profiler.getStats();
+        assertEquals(stats.size(), 2);
+        QueryProfiler.SqlStats byTitle = null;
+        for (QueryProfiler.SqlStats s : stats) {
+            if (s.sql.equals("SELECT * FROM mapped_entity WHERE title = ?")) {
+                byTitle = s;
+            } else {
+                assertNull(s.getFullScanPlan());
+            }
+        }
+        assertNotNull(byTitle);
+        assertEquals(byTitle.getCount(), 2);
+        assertEquals(byTitle.getRows(), 2);
+        assertNotNull(byTitle.getFullScanPlan());
+        profiler.reset();
+        assertTrue(profiler.getStats().isEmpty());
+    }
+
+    @Test
+    public void schemaGeneration() throws Exception {
+        SQLiteDatabase db = asql.getDB();
+        db.execSQL("DROP TABLE IF EXISTS schema_entity");
+        asql.createTables(db, SchemaEntity.class);
+        Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'schema_entity'", null);
+        assertEquals(cursor.getCount(), 3);
+        cursor.close();
+        SchemaEntity e = new SchemaEntity();
+        e.code = "a";
+        asql.save(e);
+        assertEquals(e.id, 1);
+        assertEquals(asql.upgradeSchema(db, SchemaEntity.class).size(), 0);
+        db.execSQL("DROP INDEX schema_entity_title_idx");
+        assertEquals(asql.upgradeSchema(db, SchemaEntity.class).size(), 1);
+        assertEquals(asql.upgradeSchema(db, SchemaEntity.class).size(), 0);
+        db.execSQL("DROP TABLE schema_entity");
+    }
+
     @Test
     public void loadAll() throws Exception {
         asql.save(new Entity("test"));
@@ -112,6 +655,88 @@ public class ASQLTest {
         assertEquals(result.size(), 2);
     }
 
+    @Test
+    public void stream() throws Exception {
+        asql.save(new Entity("test"));
+        asql.save(new Entity(null));
+        asql.save(new Entity("test3"));
+        List<String> titles = new ArrayList<>();
+        CloseableIterator<Entity> iterator = asql.streamReusingInstance(Entity.class, "SELECT * FROM entity ORDER BY id");
+        Entity first = null;
+        for (Entity e : iterator) {
+            if (first == null) first = e;
+            assertSame(first, e);
+            titles.add(e.title);
+        }
+        assertEquals(titles.size(), 3);
+        assertEquals(titles.get(0), "test");
+        assertNull(titles.get(1));
+        assertEquals(titles.get(2), "test3");
+
+        iterator = asql.stream(Entity.class, "SELECT * FROM entity");
+        assertTrue(iterator.hasNext());
+        assertNotSame(iterator.next(), iterator.next());
+        iterator.close();
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void keysetPaging() throws Exception {
+        List<Entity> items = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            items.add(new Entity("title" + (i % 3)));
+        }
+        asql.saveAll(items);
+        KeysetPager<Entity> pager = asql.pager(Entity.class, 10);
+        assertEquals(pager.loadNextPage().size(), 10);
+        List<Entity> page = pager.loadNextPage();
+        assertEquals(page.size(), 10);
+        assertEquals(page.get(0).id, items.get(10).id);
+        assertEquals(pager.loadNextPage().size(), 5);
+        assertFalse(pager.hasMore());
+        assertTrue(pager.loadNextPage().isEmpty());
+
+        pager = asql.pager(Entity.class, "title", true, 4, "title != ?", "title1");
+        int count = 0;
+        String prevTitle = null;
+        while (pager.hasMore()) {
+            for (Entity e : pager.loadNextPage()) {
+                assertTrue(prevTitle == null || prevTitle.compareTo(e.title) >= 0);
+                prevTitle = e.title;
+                count++;
+            }
+        }
+        assertEquals(count, 17);
+
+        //column declared without type has no affinity, seek keys should be bound as numbers
+        asql.exec("CREATE TABLE IF NOT EXISTS untyped_entity (id INTEGER PRIMARY KEY AUTOINCREMENT, rank)");
+        List<UntypedEntity> untyped = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            UntypedEntity e = new UntypedEntity();
+            e.rank = 100 + i / 2;
+            untyped.add(e);
+        }
+        asql.saveAll(untyped);
+        KeysetPager<UntypedEntity> untypedPager = asql.pager(UntypedEntity.class, "rank", false, 10, null);
+        count = 0;
+        while (untypedPager.hasMore()) {
+            count += untypedPager.loadNextPage().size();
+        }
+        assertEquals(count, 25);
+        asql.exec("DROP TABLE untyped_entity");
+    }
+
+    @Test
+    public void statementCache() throws Exception {
+        StatementCache cache = asql.getStatementCache();
+        asql.count(Entity.class);
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+        asql.count(Entity.class);
+        assertEquals(cache.getHitCount(), hits + 1);
+        assertEquals(cache.getMissCount(), misses);
+    }
+
     @Test
     public void clear() throws Exception {
         asql.save(new Entity("test"));
@@ -139,6 +764,23 @@ public class ASQLTest {
         assertEquals(asql.count(Entity.class), 0);
     }
 
+    @Test
+    public void deleteManyInChunks() throws Exception {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            items.add(new Entity("test" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            items.add(new MappedEntity("test" + i, i, false));
+        }
+        asql.saveAll(items);
+        assertEquals(asql.delete(items.subList(0, 1250), 300), 1250);
+        assertEquals(asql.count(Entity.class), 1250);
+        assertEquals(asql.delete(items.subList(1250, items.size())), 1260);
+        assertEquals(asql.count(Entity.class), 0);
+        assertEquals(asql.count(MappedEntity.class), 0);
+    }
+
     @Test
     public void saveAndLoadIdLessEntity() throws Exception {
         asql.save(new IdLessEntity("test", "test2"));
@@ -149,4 +791,131 @@ public class ASQLTest {
         asql.clear(IdLessEntity.class);
         assertEquals(asql.count(IdLessEntity.class), 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void saveAndLoadWithGeneratedMapper() throws Exception {
+        assertNotNull(Class.forName("com.fedir.example.ASQLTest_MappedEntity_ASQLMapper"));
+        MappedEntity e = new MappedEntity("test", 4.5, true);
+        long id = asql.save(e);
+        assertTrue(id > 0);
+        assertEquals(id, e.id);
+        MappedEntity e2 = asql.find(MappedEntity.class, "id = ?", Long.toString(id));
+        assertNotNull(e2);
+        assertEquals(e.title, e2.title);
+        assertEquals(e.rating, e2.rating, 0);
+        assertTrue(e2.flag);
+        assertEquals(asql.delete(e2), 1);
+        assertEquals(asql.count(MappedEntity.class), 0);
+    }
+
+    @Test
+    public void modelStoreOverAndroidDriver() throws Exception {
+        Context appContext = InstrumentationRegistry.getTargetContext();
+        appContext.deleteDatabase("store.db");
+        ModelStore store = new ModelStore(new AndroidDriver().open(appContext.getDatabasePath("store.db").getPath()));
+        try {
+            store.createTables(MappedEntity.class);
+            MappedEntity e = new MappedEntity("test", 4.5, true);
+            long id = store.save(e);
+            assertEquals(id, e.id);
+            MappedEntity e2 = store.find(MappedEntity.class, "rating > ?", 4.0);
+            assertNotNull(e2);
+            assertEquals(e.title, e2.title);
+            assertEquals(store.count(MappedEntity.class), 1);
+        } finally {
+            store.close();
+            appContext.deleteDatabase("store.db");
+        }
+    }
+
+    @Test
+    public void readColumnsIntoPrimitiveBuffers() throws Exception {
+        List<MappedEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entities.add(new MappedEntity("test" + i, i / 2.0, i % 2 == 0));
+        }
+        asql.saveAll(entities);
+        LongArray ids = new LongArray(4);
+        DoubleArray ratings = new DoubleArray(4);
+        IntArray flags = new IntArray(4);
+        ColumnBuffers columns = new ColumnBuffers().add("id", ids).add("rating", ratings).add("flag", flags);
+        int rows = asql.query(MappedEntity.class).where("rating", ">=")
+                .orderBy("rating", false).args(10.0).readColumns(columns);
+        assertEquals(rows, 80);
+        assertEquals(ratings.size(), 80);
+        assertEquals(ratings.get(0), 10.0, 0);
+        assertEquals(ratings.get(79), 49.5, 0);
+        assertEquals(ids.get(0), entities.get(20).id);
+        assertEquals(flags.get(0), 1);
+        assertEquals(flags.get(1), 0);
+
+        //buffers are cleared and refilled, raw query columns are found by name
+        rows = asql.readColumns("SELECT rating, id FROM mapped_entity WHERE rating < ? ORDER BY rating DESC",
+                new ColumnBuffers().add("id", ids).add("rating", ratings), 1.0);
+        assertEquals(rows, 2);
+        assertEquals(ids.size(), 2);
+        assertEquals(ratings.get(0), 0.5, 0);
+        assertArrayEquals(ids.toArray(), new long[]{entities.get(1).id, entities.get(0).id});
+    }
+
+    @Test
+    public void blobFieldsAndStreaming() throws Exception {
+        BlobEntity e = new BlobEntity();
+        e.data = new byte[]{0, 1, 2, (byte) 255};
+        e.buffer = ByteBuffer.wrap(new byte[]{9, 8, 7, 6}, 1, 2);
+        long id = asql.save(e);
+        BlobEntity loaded = asql.findByPrimaryKey(BlobEntity.class, id);
+        assertArrayEquals(loaded.data, e.data);
+        assertEquals(loaded.buffer, ByteBuffer.wrap(new byte[]{8, 7}));
+
+        //larger than CursorWindow, written and read in chunks
+        byte[] big = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(big);
+        BlobColumn column = asql.blobColumn(BlobEntity.class, "data", 100 * 1024);
+        assertEquals(column.write(id, new ByteArrayInputStream(big)), big.length);
+        assertEquals(column.length(id), big.length);
+        InputStream in = column.openInputStream(id);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        assertArrayEquals(out.toByteArray(), big);
+        assertEquals(column.write(id, new ByteArrayInputStream(new byte[0])), 0);
+        assertEquals(column.length(id), 0);
+        assertEquals(column.write(id + 1000, new ByteArrayInputStream(big)), -1);
+        asql.clear(BlobEntity.class);
+    }
+
+    @Test
+    public void typeConvertedFields() throws Exception {
+        ConvertedEntity e = new ConvertedEntity();
+        e.status = Status.NEW;
+        e.time = new Date(1500000000000L);
+        e.uuid = UUID.randomUUID();
+        long id = asql.save(e);
+        ConvertedEntity loaded = asql.findByPrimaryKey(ConvertedEntity.class, id);
+        assertEquals(loaded.status, Status.NEW);
+        assertEquals(loaded.time, e.time);
+        assertEquals(loaded.uuid, e.uuid);
+        assertNull(loaded.attempts);
+
+        //in place change of mutable Date is detected by change tracking
+        loaded.time.setTime(1600000000000L);
+        loaded.attempts = 2;
+        asql.save(loaded);
+        Cursor cursor = asql.getDB().rawQuery("SELECT status, time, attempts, length(uuid) FROM converted_entity", null);
+        try {
+            assertTrue(cursor.moveToNext());
+            assertEquals(cursor.getString(0), "NEW");
+            assertEquals(cursor.getLong(1), 1600000000000L);
+            assertEquals(cursor.getInt(2), 2);
+            assertEquals(cursor.getInt(3), 16);
+        } finally {
+            cursor.close();
+        }
+        asql.clear(ConvertedEntity.class);
+    }
+}
@@ -3,6 +3,7 @@ package com.fedir.example;
 import android.app.Application;
 import android.database.sqlite.SQLiteDatabase;
 
+import com.fedir.example.model.Note;
 import com.phlox.asql.ASQL;
 
 import java.util.concurrent.ExecutorService;
@@ -18,14 +19,12 @@ public class App extends Application {
         ASQL.initDefaultInstance("main.db", 1, new ASQL.BaseCallback() {
             @Override
             public void onCreate(ASQL asql, SQLiteDatabase db) {
-                db.execSQL("CREATE TABLE note ("
-                        + "id INTEGER PRIMARY KEY NOT NULL,"
-                        + "title TEXT,"
-                        + "body TEXT,"
-                        + "creationTime INTEGER,"
-                        + "modificationTime INTEGER"
-                        + ");");
-                db.execSQL("CREATE INDEX note_title_idx ON note(title);");
+                asql.createTables(db, Note.class);
+            }
+
+            @Override
+            public void onUpgrade(ASQL asql, SQLiteDatabase db, int oldVersion, int newVersion) {
+                asql.upgradeSchema(db, Note.class);
             }
         });
     }
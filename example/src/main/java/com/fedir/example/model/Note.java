@@ -1,11 +1,15 @@
 package com.fedir.example.model;
 
+import com.phlox.asql.annotations.DBColumn;
+import com.phlox.asql.annotations.DBTable;
+
 /**
  * Created by PDT on 08.06.2017.
  */
-
+@DBTable(name = "note")
 public class Note {
     public int id;
+    @DBColumn(indexed = true)
     public String title;
     public String body;
     public long creationTime;